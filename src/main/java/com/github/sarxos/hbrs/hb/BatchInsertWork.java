@@ -0,0 +1,352 @@
+package com.github.sarxos.hbrs.hb;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.hibernate.EntityMode;
+import org.hibernate.HibernateException;
+import org.hibernate.engine.SessionFactoryImplementor;
+import org.hibernate.engine.SessionImplementor;
+import org.hibernate.engine.Versioning;
+import org.hibernate.jdbc.Work;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.persister.entity.SingleTableEntityPersister;
+import org.hibernate.type.CollectionType;
+import org.hibernate.type.Type;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Hibernate work to insert entities of a single class with JDBC batch statements. One prepared
+ * statement is created for the entity table and every chunk of entities is executed with
+ * {@link PreparedStatement#addBatch()} and {@link PreparedStatement#executeBatch()}. Identifiers
+ * generated by the database (e.g. IDENTITY columns) are read back from generated keys, other
+ * identifiers are obtained from the entity identifier generator before insert.<br>
+ * <br>
+ * Only single-table entities without inheritance hierarchy and without owned collections (e.g.
+ * {@code @ManyToMany} join tables, whose rows would not be written) are supported, please check
+ * {@link #isSupported(EntityPersister)} before using this work.
+ *
+ * @author Bartosz Firyn (sarxos)
+ * @param <T> the entity type
+ */
+public class BatchInsertWork<T> implements Work {
+
+	private static final Logger LOG = LoggerFactory.getLogger(BatchInsertWork.class);
+
+	protected final AbstractEntityPersister persister;
+
+	protected final SessionImplementor session;
+
+	private final List<T> entities;
+
+	private final int chunkSize;
+
+	private final List<BatchResult> results = new ArrayList<>();
+
+	/**
+	 * Indexes of properties to be written.
+	 */
+	protected final int[] properties;
+
+	/**
+	 * @param persister the entity persister
+	 * @param session the session used to bind values and generate identifiers
+	 * @param entities the entities of the same class to be inserted
+	 * @param chunkSize the number of rows per one JDBC batch
+	 */
+	public BatchInsertWork(AbstractEntityPersister persister, SessionImplementor session, List<T> entities, int chunkSize) {
+
+		if (chunkSize <= 0) {
+			throw new IllegalArgumentException("Chunk size must be positive");
+		}
+
+		this.persister = persister;
+		this.session = session;
+		this.entities = entities;
+		this.chunkSize = chunkSize;
+		this.properties = getWritableProperties(persister);
+	}
+
+	/**
+	 * Check if given persister can be used with JDBC batch work.
+	 *
+	 * @param persister the entity persister
+	 * @return True if entities can be written with this work, false otherwise
+	 */
+	public static boolean isSupported(EntityPersister persister) {
+		if (!(persister instanceof SingleTableEntityPersister)) {
+			return false;
+		}
+		SingleTableEntityPersister stp = (SingleTableEntityPersister) persister;
+		return !stp.isInherited() && !stp.hasSubclasses() && !hasOwnedCollections(stp);
+	}
+
+	/**
+	 * Check if entity owns any collection, i.e. collection which is not inverse (not mapped by the
+	 * other side) and which rows are written together with the entity, like {@code @ManyToMany}
+	 * join table rows. Such rows are not written by JDBC batch work nor by stateless session.
+	 *
+	 * @param persister the entity persister
+	 * @return True if entity owns at least one collection, false otherwise
+	 */
+	public static boolean hasOwnedCollections(EntityPersister persister) {
+
+		SessionFactoryImplementor factory = persister.getFactory();
+
+		for (Type type : persister.getPropertyTypes()) {
+			if (type.isCollectionType()) {
+				String role = ((CollectionType) type).getRole();
+				if (!factory.getCollectionPersister(role).isInverse()) {
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	private static int[] getWritableProperties(AbstractEntityPersister persister) {
+
+		boolean[] insertable = persister.getPropertyInsertability();
+		int[] indexes = new int[insertable.length];
+		int n = 0;
+
+		for (int i = 0; i < indexes.length; i++) {
+			if (insertable[i] && persister.getPropertyColumnNames(i).length > 0) {
+				indexes[n++] = i;
+			}
+		}
+
+		int[] result = new int[n];
+		System.arraycopy(indexes, 0, result, 0, n);
+
+		return result;
+	}
+
+	/**
+	 * @return True if identifier is generated by the database during insert
+	 */
+	protected boolean isIdentifierGeneratedByDatabase() {
+		return persister.isIdentifierAssignedByInsert();
+	}
+
+	/**
+	 * @return Column names to be written, identifier columns first (if any)
+	 */
+	protected List<String> getColumns() {
+
+		List<String> columns = new ArrayList<>();
+
+		if (!isIdentifierGeneratedByDatabase()) {
+			Collections.addAll(columns, persister.getIdentifierColumnNames());
+		}
+
+		for (int i : properties) {
+			Collections.addAll(columns, persister.getPropertyColumnNames(i));
+		}
+
+		return columns;
+	}
+
+	/**
+	 * Create SQL statement to be executed for every entity.
+	 *
+	 * @return SQL statement
+	 */
+	protected String createSql() {
+
+		List<String> columns = getColumns();
+
+		StringBuilder sb = new StringBuilder("insert into ")
+			.append(persister.getTableName())
+			.append(" (");
+
+		for (int i = 0; i < columns.size(); i++) {
+			sb.append(i == 0 ? "" : ", ").append(columns.get(i));
+		}
+
+		sb.append(") values (");
+
+		for (int i = 0; i < columns.size(); i++) {
+			sb.append(i == 0 ? "?" : ", ?");
+		}
+
+		return sb.append(')').toString();
+	}
+
+	/**
+	 * @return Per-chunk results of the executed work
+	 */
+	public List<BatchResult> getResults() {
+		return results;
+	}
+
+	@Override
+	public void execute(Connection connection) throws SQLException {
+
+		Class<?> clazz = persister.getMappedClass(EntityMode.POJO);
+		String sql = createSql();
+		boolean generated = isIdentifierGeneratedByDatabase();
+
+		LOG.debug("Batch SQL for {} is {}", clazz, sql);
+
+		PreparedStatement ps = generated
+			? connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+			: connection.prepareStatement(sql);
+
+		try {
+
+			int chunk = 0;
+
+			for (int offset = 0; offset < entities.size(); offset += chunkSize) {
+
+				List<T> part = entities.subList(offset, Math.min(offset + chunkSize, entities.size()));
+				long start = System.currentTimeMillis();
+
+				for (T entity : part) {
+					bind(ps, entity, generated);
+					ps.addBatch();
+				}
+
+				int rows = count(ps.executeBatch());
+
+				if (generated) {
+					readGeneratedKeys(ps, part);
+				}
+
+				BatchResult result = new BatchResult(clazz, chunk++, part.size(), rows, System.currentTimeMillis() - start);
+
+				LOG.trace("Chunk executed {}", result);
+
+				results.add(result);
+			}
+
+		} finally {
+			ps.close();
+		}
+	}
+
+	/**
+	 * Bind entity values to the prepared statement.
+	 *
+	 * @param ps the prepared statement
+	 * @param entity the entity to be written
+	 * @param generated is identifier generated by database
+	 * @throws SQLException when value cannot be bound
+	 */
+	protected void bind(PreparedStatement ps, T entity, boolean generated) throws SQLException {
+
+		int index = 1;
+
+		if (!generated) {
+
+			Serializable id = getIdentifier(entity);
+			Type type = persister.getIdentifierType();
+
+			type.nullSafeSet(ps, id, index, session);
+			index += type.getColumnSpan(session.getFactory());
+		}
+
+		Object[] state = persister.getPropertyValues(entity, EntityMode.POJO);
+
+		if (persister.isVersioned()) {
+			if (Versioning.seedVersion(state, persister.getVersionProperty(), persister.getVersionType(), session)) {
+				persister.setPropertyValues(entity, state, EntityMode.POJO);
+			}
+		}
+
+		Type[] types = persister.getPropertyTypes();
+
+		for (int i : properties) {
+			types[i].nullSafeSet(ps, state[i], index, session);
+			index += persister.getPropertyColumnNames(i).length;
+		}
+	}
+
+	/**
+	 * Get identifier to be written. For entities not having identifier set, the new one will be
+	 * generated and injected into entity.
+	 *
+	 * @param entity the entity
+	 * @return Entity identifier
+	 */
+	protected Serializable getIdentifier(T entity) {
+
+		Serializable id = persister.getIdentifier(entity, EntityMode.POJO);
+		if (id != null) {
+			return id;
+		}
+
+		id = persister.getIdentifierGenerator().generate(session, entity);
+		persister.setIdentifier(entity, id, EntityMode.POJO);
+
+		return id;
+	}
+
+	private void readGeneratedKeys(PreparedStatement ps, List<T> part) throws SQLException {
+
+		ResultSet rs = ps.getGeneratedKeys();
+		try {
+			Class<?> type = persister.getIdentifierType().getReturnedClass();
+			for (T entity : part) {
+				if (!rs.next()) {
+					throw new HibernateException("Database returned less generated keys than rows inserted for " + persister.getEntityName());
+				}
+				persister.setIdentifier(entity, convert(rs.getObject(1), type), EntityMode.POJO);
+			}
+		} finally {
+			rs.close();
+		}
+	}
+
+	private static Serializable convert(Object key, Class<?> type) {
+
+		if (!(key instanceof Number) || type.isInstance(key)) {
+			return (Serializable) key;
+		}
+
+		Number n = (Number) key;
+
+		if (type == Long.class || type == long.class) {
+			return n.longValue();
+		}
+		if (type == Integer.class || type == int.class) {
+			return n.intValue();
+		}
+		if (type == Short.class || type == short.class) {
+			return n.shortValue();
+		}
+		if (type == BigInteger.class) {
+			return BigInteger.valueOf(n.longValue());
+		}
+		if (type == BigDecimal.class) {
+			return BigDecimal.valueOf(n.longValue());
+		}
+
+		throw new HibernateException("Unsupported generated identifier type " + type);
+	}
+
+	private static int count(int[] counts) {
+		int rows = 0;
+		for (int c : counts) {
+			if (c > 0) {
+				rows += c;
+			} else if (c == Statement.SUCCESS_NO_INFO) {
+				rows++;
+			}
+		}
+		return rows;
+	}
+}
@@ -0,0 +1,89 @@
+package com.github.sarxos.hbrs.hb;
+
+/**
+ * Result of a single JDBC batch chunk executed by the bulk operations of persistence keeper.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+public class BatchResult {
+
+	/**
+	 * The entity class.
+	 */
+	private final Class<?> entityClass;
+
+	/**
+	 * The chunk index (per entity class).
+	 */
+	private final int chunk;
+
+	/**
+	 * The number of entities in chunk.
+	 */
+	private final int size;
+
+	/**
+	 * The number of affected rows.
+	 */
+	private final int rows;
+
+	/**
+	 * The chunk execution time in milliseconds.
+	 */
+	private final long time;
+
+	/**
+	 * @param entityClass the entity class
+	 * @param chunk the chunk index
+	 * @param size the number of entities in chunk
+	 * @param rows the number of affected rows
+	 * @param time the execution time in milliseconds
+	 */
+	public BatchResult(Class<?> entityClass, int chunk, int size, int rows, long time) {
+		this.entityClass = entityClass;
+		this.chunk = chunk;
+		this.size = size;
+		this.rows = rows;
+		this.time = time;
+	}
+
+	/**
+	 * @return The entity class
+	 */
+	public Class<?> getEntityClass() {
+		return entityClass;
+	}
+
+	/**
+	 * @return The chunk index (counted separately for every entity class)
+	 */
+	public int getChunk() {
+		return chunk;
+	}
+
+	/**
+	 * @return The number of entities in chunk
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * @return The number of affected rows as reported by JDBC driver
+	 */
+	public int getRows() {
+		return rows;
+	}
+
+	/**
+	 * @return The chunk execution time in milliseconds
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s[%s #%d, size %d, rows %d, %d ms]", getClass().getSimpleName(), entityClass.getSimpleName(), chunk, size, rows, time);
+	}
+}
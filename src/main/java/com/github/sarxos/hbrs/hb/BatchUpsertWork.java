@@ -0,0 +1,154 @@
+package com.github.sarxos.hbrs.hb;
+
+import java.io.Serializable;
+import java.util.List;
+
+import org.hibernate.EntityMode;
+import org.hibernate.HibernateException;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.engine.SessionImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+
+
+/**
+ * Hibernate work to insert or update entities of a single class with native upsert statements
+ * executed in JDBC batches. On MySQL the INSERT ... ON DUPLICATE KEY UPDATE statement is used, and
+ * on H2 the MERGE statement is used. Entities must have identifiers assigned, because there is no
+ * way to tell if entity without ID should be inserted or updated.<br>
+ * <br>
+ * On MySQL, existing rows are updated only in columns which are updatable, so columns mapped with
+ * {@code updatable = false} (e.g. creation timestamps) keep their values. Version column of the
+ * existing row is incremented (or set to the current timestamp), but version is neither checked
+ * nor updated in the entity instance, so last write wins. On H2 the MERGE statement always writes
+ * all insertable columns.
+ *
+ * @author Bartosz Firyn (sarxos)
+ * @param <T> the entity type
+ */
+public class BatchUpsertWork<T> extends BatchInsertWork<T> {
+
+	private final Dialect dialect;
+
+	/**
+	 * @param persister the entity persister
+	 * @param session the session used to bind values
+	 * @param entities the entities of the same class to be written
+	 * @param chunkSize the number of rows per one JDBC batch
+	 * @param dialect the database dialect
+	 */
+	public BatchUpsertWork(AbstractEntityPersister persister, SessionImplementor session, List<T> entities, int chunkSize, Dialect dialect) {
+		super(persister, session, entities, chunkSize);
+		this.dialect = dialect;
+	}
+
+	/**
+	 * Check if native upsert is available for given dialect.
+	 *
+	 * @param dialect the database dialect
+	 * @return True if upsert is supported, false otherwise
+	 */
+	public static boolean isSupported(Dialect dialect) {
+		return dialect instanceof MySQLDialect || dialect instanceof H2Dialect;
+	}
+
+	@Override
+	protected boolean isIdentifierGeneratedByDatabase() {
+		return false;
+	}
+
+	@Override
+	protected Serializable getIdentifier(T entity) {
+		Serializable id = persister.getIdentifier(entity, EntityMode.POJO);
+		if (id == null) {
+			throw new IllegalStateException("Entity to be upserted must have ID set");
+		}
+		return id;
+	}
+
+	@Override
+	protected String createSql() {
+
+		if (dialect instanceof H2Dialect) {
+			return createMergeSql();
+		}
+		if (dialect instanceof MySQLDialect) {
+			return createInsertOnDuplicateSql();
+		}
+
+		throw new HibernateException("Upsert is not supported for " + dialect);
+	}
+
+	private String createMergeSql() {
+
+		List<String> columns = getColumns();
+
+		StringBuilder sb = new StringBuilder("merge into ")
+			.append(persister.getTableName())
+			.append(" (");
+
+		for (int i = 0; i < columns.size(); i++) {
+			sb.append(i == 0 ? "" : ", ").append(columns.get(i));
+		}
+
+		sb.append(") key (");
+
+		String[] ids = persister.getIdentifierColumnNames();
+		for (int i = 0; i < ids.length; i++) {
+			sb.append(i == 0 ? "" : ", ").append(ids[i]);
+		}
+
+		sb.append(") values (");
+
+		for (int i = 0; i < columns.size(); i++) {
+			sb.append(i == 0 ? "?" : ", ?");
+		}
+
+		return sb.append(')').toString();
+	}
+
+	private String createInsertOnDuplicateSql() {
+
+		StringBuilder sb = new StringBuilder(super.createSql()).append(" on duplicate key update ");
+
+		boolean[] updatable = persister.getPropertyUpdateability();
+		int version = persister.isVersioned() ? persister.getVersionProperty() : -1;
+
+		int n = 0;
+		for (int i : properties) {
+
+			if (i == version) {
+				continue;
+			}
+			if (!updatable[i]) {
+				continue;
+			}
+
+			for (String column : persister.getPropertyColumnNames(i)) {
+				sb.append(n++ == 0 ? "" : ", ").append(column).append(" = values(").append(column).append(')');
+			}
+		}
+
+		// bump version of the existing row, so other sessions holding it will fail on update
+
+		if (version >= 0) {
+			String column = persister.getPropertyColumnNames(version)[0];
+			sb.append(n++ == 0 ? "" : ", ").append(column);
+			if (Number.class.isAssignableFrom(persister.getVersionType().getReturnedClass())) {
+				sb.append(" = ").append(column).append(" + 1");
+			} else {
+				sb.append(" = current_timestamp");
+			}
+		}
+
+		// no columns except ID, make update no-op
+
+		if (n == 0) {
+			String id = persister.getIdentifierColumnNames()[0];
+			sb.append(id).append(" = ").append(id);
+		}
+
+		return sb.toString();
+	}
+}
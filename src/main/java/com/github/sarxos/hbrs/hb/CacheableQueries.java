@@ -0,0 +1,31 @@
+package com.github.sarxos.hbrs.hb;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+
+/**
+ * The annotation used on entity types to make list, page and count queries executed by the
+ * persistence keeper cacheable in Hibernate query cache. Please note that query cache has to be
+ * enabled in Hibernate configuration (hibernate.cache.use_query_cache), otherwise this annotation
+ * has no effect. It's recommended to use it only for entities which are rarely modified, because
+ * every modification of the entity table invalidates all cached queries for this table.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+@Inherited
+@Target(TYPE)
+@Retention(RUNTIME)
+public @interface CacheableQueries {
+
+	/**
+	 * Name of the query cache region. Default query cache region is used when empty.
+	 *
+	 * @return Query cache region name
+	 */
+	String region() default "";
+}
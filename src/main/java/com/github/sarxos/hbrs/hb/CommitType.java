@@ -0,0 +1,19 @@
+package com.github.sarxos.hbrs.hb;
+
+/**
+ * The type of commit operation used to store entities in the database.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+public enum CommitType {
+
+	SAVE,
+
+	UPDATE,
+
+	SAVE_OR_UPDATE,
+
+	MERGE,
+
+	PERSIST,
+}
@@ -0,0 +1,454 @@
+package com.github.sarxos.hbrs.hb;
+
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.ManyToMany;
+import javax.persistence.ManyToOne;
+import javax.persistence.OneToMany;
+
+import org.hibernate.HibernateException;
+import org.hibernate.SessionFactory;
+import org.hibernate.metadata.ClassMetadata;
+import org.hibernate.type.NullableType;
+import org.hibernate.type.Type;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+
+/**
+ * Precomputed metadata of the entity class used by persistence keeper. Descriptors are created
+ * lazily, once per class, and are safe to be used from many threads. Everything which can be
+ * computed from class itself is computed when descriptor is created, the rest (things which
+ * require Hibernate mapping, like identifier property name) is computed on first use, separately
+ * for every session factory.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+public final class EntityDescriptor {
+
+	private static final ClassValue<EntityDescriptor> DESCRIPTORS = new ClassValue<EntityDescriptor>() {
+
+		@Override
+		protected EntityDescriptor computeValue(Class<?> type) {
+			return new EntityDescriptor(type);
+		}
+	};
+
+	/**
+	 * Queries and metadata which depend on Hibernate mapping.
+	 */
+	private static final class Mapping {
+
+		private final ClassMetadata metadata;
+		private final String identifier;
+		private final Class<?> identifierType;
+		private final Set<String> properties;
+		private final String selectByIds;
+		private final String exists;
+		private final String existing;
+		private final String delete;
+		private final String deleteByIds;
+		private final List<String> view;
+		private final String bounds;
+		private final String range;
+
+		public Mapping(String name, ClassMetadata cm, List<Field> hydratable) {
+			metadata = cm;
+			identifier = cm.getIdentifierPropertyName();
+			identifierType = cm.getIdentifierType().getReturnedClass();
+			properties = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(cm.getPropertyNames())));
+			selectByIds = String.format("from %s e where e.%s in (:ids)", name, identifier);
+			exists = String.format("select e.%2$s from %1$s e where e.%2$s = :id", name, identifier);
+			existing = String.format("select e.%2$s from %1$s e where e.%2$s in (:ids)", name, identifier);
+			delete = String.format("delete from %s e where e.%s = :id", name, identifier);
+			deleteByIds = String.format("delete from %s e where e.%s in (:ids)", name, identifier);
+			bounds = String.format("select min(e.%2$s), max(e.%2$s) from %1$s e", name, identifier);
+			range = String.format("from %1$s e where e.%2$s between :lo and :hi order by e.%2$s", name, identifier);
+
+			List<String> view = new ArrayList<>();
+			view.add(identifier);
+			for (Field f : hydratable) {
+				String property = f.getName();
+				if (properties.contains(property) && !cm.getPropertyType(property).isAssociationType()) {
+					view.add(property);
+				}
+			}
+
+			this.view = Collections.unmodifiableList(view);
+		}
+	}
+
+	private final Class<?> type;
+	private final boolean entity;
+	private final String name;
+	private final CacheableQueries cacheable;
+	private final List<Field> hydratable;
+	private final List<Field> associations;
+	private final String list;
+	private final String count;
+
+	/**
+	 * Mappings by session factory, since the same class can be mapped by many factories.
+	 */
+	private final ConcurrentMap<SessionFactory, Mapping> mappings = new ConcurrentHashMap<>(2);
+
+	private EntityDescriptor(Class<?> type) {
+
+		this.type = type;
+		this.entity = isEntity(type);
+		this.name = type.getSimpleName();
+		this.cacheable = type.getAnnotation(CacheableQueries.class);
+		this.list = String.format("from %s", name);
+		this.count = String.format("select count(1) from %s", name);
+
+		List<Field> hydratable = new ArrayList<>();
+		List<Field> associations = new ArrayList<>();
+
+		for (Field f : type.getDeclaredFields()) {
+
+			boolean jp = f.isAnnotationPresent(JsonProperty.class);
+			boolean ji = f.isAnnotationPresent(JsonIgnore.class);
+			boolean c = f.isAnnotationPresent(Column.class);
+
+			boolean mto = f.isAnnotationPresent(ManyToOne.class);
+			boolean otm = f.isAnnotationPresent(OneToMany.class);
+			boolean mtm = f.isAnnotationPresent(ManyToMany.class);
+
+			if (jp && c) {
+				hydratable.add(f);
+			}
+			if (!ji && (mto || otm || mtm)) {
+				associations.add(f);
+			}
+			if (jp && c || !ji && (mto || otm || mtm)) {
+				f.setAccessible(true);
+			}
+		}
+
+		this.hydratable = Collections.unmodifiableList(hydratable);
+		this.associations = Collections.unmodifiableList(associations);
+	}
+
+	/**
+	 * Get descriptor of given class.
+	 *
+	 * @param clazz the entity class
+	 * @return Entity descriptor
+	 */
+	public static EntityDescriptor of(Class<?> clazz) {
+		return DESCRIPTORS.get(clazz);
+	}
+
+	private static boolean isEntity(Class<?> c) {
+		for (Class<?> cc = c; cc != null; cc = cc.getSuperclass()) {
+			if (cc.isAnnotationPresent(Entity.class)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private Mapping mapping(SessionFactory factory) {
+		Mapping m = mappings.get(factory);
+		if (m == null) {
+			ClassMetadata cm = factory.getClassMetadata(type);
+			if (cm == null) {
+				throw new IllegalArgumentException(String.format("Class %s is not mapped in session factory", type.getName()));
+			}
+			Mapping mm = mappings.putIfAbsent(factory, m = new Mapping(name, cm, hydratable));
+			if (mm != null) {
+				m = mm;
+			}
+		}
+		return m;
+	}
+
+	/**
+	 * @return The described class
+	 */
+	public Class<?> getType() {
+		return type;
+	}
+
+	/**
+	 * @return True if class or any of its superclasses is annotated with {@link Entity}
+	 */
+	public boolean isEntity() {
+		return entity;
+	}
+
+	/**
+	 * @return The entity name used in HQL queries
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return The query cache settings or null if queries are not cacheable
+	 */
+	public CacheableQueries getCacheableQueries() {
+		return cacheable;
+	}
+
+	/**
+	 * @return Declared fields visible in REST interface and mapped to columns (accessible)
+	 */
+	public List<Field> getHydratableFields() {
+		return hydratable;
+	}
+
+	/**
+	 * @return Declared association fields which are not JSON-ignored (accessible)
+	 */
+	public List<Field> getAssociationFields() {
+		return associations;
+	}
+
+	/**
+	 * @return HQL selecting all entities
+	 */
+	public String getListHql() {
+		return list;
+	}
+
+	/**
+	 * @return HQL counting all entities
+	 */
+	public String getCountHql() {
+		return count;
+	}
+
+	/**
+	 * @param factory the session factory
+	 * @return The identifier property name
+	 */
+	public String getIdentifierName(SessionFactory factory) {
+		return mapping(factory).identifier;
+	}
+
+	/**
+	 * Convert numeric identifier to the mapped identifier type, e.g. {@link Integer} to
+	 * {@link Long}, so it can be compared with identifiers of loaded entities. String identifier
+	 * is parsed as a token created by {@link #toIdentifierToken(SessionFactory, Serializable)},
+	 * unless identifier is mapped as string. Other identifiers are returned as they are.
+	 *
+	 * @param factory the session factory
+	 * @param id the identifier
+	 * @return Identifier of the mapped type
+	 * @throws IllegalArgumentException when string identifier cannot be converted
+	 */
+	public Serializable toIdentifier(SessionFactory factory, Serializable id) {
+
+		Mapping m = mapping(factory);
+		Class<?> type = m.identifierType;
+
+		if (id instanceof String && !type.isInstance(id)) {
+			return (Serializable) fromToken(m.metadata.getIdentifierType(), (String) id);
+		}
+
+		if (!(id instanceof Number) || type.isInstance(id)) {
+			return id;
+		}
+
+		Number n = (Number) id;
+
+		if (type == Long.class || type == long.class) {
+			return n.longValue();
+		}
+		if (type == Integer.class || type == int.class) {
+			return n.intValue();
+		}
+		if (type == Short.class || type == short.class) {
+			return n.shortValue();
+		}
+		if (type == BigInteger.class) {
+			return BigInteger.valueOf(n.longValue());
+		}
+		if (type == BigDecimal.class) {
+			return new BigDecimal(n.toString());
+		}
+
+		return id;
+	}
+
+	/**
+	 * Convert string value of given property to the mapped property type. Value has to be a
+	 * token created by {@link #toPropertyToken(SessionFactory, String, Object)}. Values other than
+	 * strings and values of string properties are returned as they are.
+	 *
+	 * @param factory the session factory
+	 * @param property the property name
+	 * @param value the property value
+	 * @return Value of the mapped type
+	 * @throws IllegalArgumentException when string value cannot be converted
+	 */
+	public Object toPropertyValue(SessionFactory factory, String property, Object value) {
+
+		if (!(value instanceof String)) {
+			return value;
+		}
+
+		Type type = mapping(factory).metadata.getPropertyType(property);
+		if (type.getReturnedClass().isInstance(value)) {
+			return value;
+		}
+
+		return fromToken(type, (String) value);
+	}
+
+	/**
+	 * @param factory the session factory
+	 * @param id the identifier
+	 * @return Identifier as string token which can be converted back with
+	 *         {@link #toIdentifier(SessionFactory, Serializable)}
+	 */
+	public String toIdentifierToken(SessionFactory factory, Serializable id) {
+		return toToken(mapping(factory).metadata.getIdentifierType(), id);
+	}
+
+	/**
+	 * @param factory the session factory
+	 * @param property the property name
+	 * @param value the property value
+	 * @return Value as string token which can be converted back with
+	 *         {@link #toPropertyValue(SessionFactory, String, Object)}
+	 */
+	public String toPropertyToken(SessionFactory factory, String property, Object value) {
+		return toToken(mapping(factory).metadata.getPropertyType(property), value);
+	}
+
+	/**
+	 * Dates are written as milliseconds since epoch, because Hibernate string form of timestamp
+	 * has only seconds precision.
+	 */
+	private static String toToken(Type type, Object value) {
+		if (value == null) {
+			return null;
+		}
+		if (value instanceof Date) {
+			return Long.toString(((Date) value).getTime());
+		}
+		if (type instanceof NullableType) {
+			return ((NullableType) type).toString(value);
+		}
+		return value.toString();
+	}
+
+	private static Object fromToken(Type type, String token) {
+
+		Class<?> c = type.getReturnedClass();
+
+		try {
+			if (Date.class.isAssignableFrom(c)) {
+				long time = Long.parseLong(token);
+				if (c == Timestamp.class) {
+					return new Timestamp(time);
+				}
+				if (c == java.sql.Date.class) {
+					return new java.sql.Date(time);
+				}
+				if (c == Time.class) {
+					return new Time(time);
+				}
+				return new Date(time);
+			}
+			if (type instanceof NullableType) {
+				return ((NullableType) type).fromStringValue(token);
+			}
+		} catch (NumberFormatException | HibernateException e) {
+			throw new IllegalArgumentException(String.format("Cannot convert %s to %s", token, c.getName()), e);
+		}
+
+		throw new IllegalArgumentException(String.format("Cannot convert %s to %s", token, c.getName()));
+	}
+
+	/**
+	 * @param factory the session factory
+	 * @return Names of mapped properties (identifier excluded)
+	 */
+	public Set<String> getPropertyNames(SessionFactory factory) {
+		return mapping(factory).properties;
+	}
+
+	/**
+	 * @param factory the session factory
+	 * @return Identifier and basic properties visible in REST interface
+	 */
+	public List<String> getViewProperties(SessionFactory factory) {
+		return mapping(factory).view;
+	}
+
+	/**
+	 * @param factory the session factory
+	 * @return HQL selecting entities with IDs from :ids parameter list
+	 */
+	public String getSelectByIdsHql(SessionFactory factory) {
+		return mapping(factory).selectByIds;
+	}
+
+	/**
+	 * @param factory the session factory
+	 * @return HQL selecting identifier of entity with :id parameter
+	 */
+	public String getExistsHql(SessionFactory factory) {
+		return mapping(factory).exists;
+	}
+
+	/**
+	 * @param factory the session factory
+	 * @return HQL selecting identifiers of entities with IDs from :ids parameter list
+	 */
+	public String getExistingHql(SessionFactory factory) {
+		return mapping(factory).existing;
+	}
+
+	/**
+	 * @param factory the session factory
+	 * @return HQL deleting entity with :id parameter
+	 */
+	public String getDeleteHql(SessionFactory factory) {
+		return mapping(factory).delete;
+	}
+
+	/**
+	 * @param factory the session factory
+	 * @return HQL deleting entities with IDs from :ids parameter list
+	 */
+	public String getDeleteByIdsHql(SessionFactory factory) {
+		return mapping(factory).deleteByIds;
+	}
+
+	/**
+	 * @param factory the session factory
+	 * @return HQL selecting minimum and maximum identifier
+	 */
+	public String getBoundsHql(SessionFactory factory) {
+		return mapping(factory).bounds;
+	}
+
+	/**
+	 * @param factory the session factory
+	 * @return HQL selecting entities with IDs between :lo and :hi (inclusive) ordered by ID
+	 */
+	public String getRangeHql(SessionFactory factory) {
+		return mapping(factory).range;
+	}
+}
@@ -0,0 +1,33 @@
+package com.github.sarxos.hbrs.hb;
+
+/**
+ * What {@link Worker} does with the new item when its queue is full.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+public enum OverloadPolicy {
+
+	/**
+	 * Block producer until there is a free space in the queue, but not longer than the worker block
+	 * timeout. Item is rejected with {@link java.util.concurrent.RejectedExecutionException} when
+	 * timeout elapses (or producer is interrupted).
+	 */
+	BLOCK,
+
+	/**
+	 * Reject new item by throwing {@link java.util.concurrent.RejectedExecutionException} to the
+	 * producer.
+	 */
+	REJECT,
+
+	/**
+	 * Drop the oldest items from the queue to make space for the new one.
+	 */
+	DROP_OLDEST,
+
+	/**
+	 * Write new item to the worker spill file. Spilled items are worked out when queue becomes
+	 * empty. Items have to be serializable, otherwise they are dropped.
+	 */
+	SPILL,
+}
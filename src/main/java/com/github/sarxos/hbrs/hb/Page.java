@@ -0,0 +1,96 @@
+package com.github.sarxos.hbrs.hb;
+
+import java.io.Serializable;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+
+/**
+ * Single page of entities returned by keyset (seek) pagination. Next page can be fetched by
+ * passing the continuation token (and the ordering value in case of ordered pagination) back to
+ * the persistence keeper.
+ *
+ * @author Bartosz Firyn (sarxos)
+ * @param <T> the entity type
+ */
+public class Page<T> {
+
+	private final List<T> items;
+	private final Serializable next;
+	private final Object value;
+	private final boolean more;
+	private final String nextToken;
+	private final String valueToken;
+
+	/**
+	 * @param items the page items
+	 * @param next the ID of the last item on this page
+	 * @param value the ordering property value of the last item on this page (may be null)
+	 * @param more is there more items after this page
+	 */
+	public Page(List<T> items, Serializable next, Object value, boolean more) {
+		this(items, next, value, more, next == null ? null : next.toString(), value == null ? null : value.toString());
+	}
+
+	/**
+	 * @param items the page items
+	 * @param next the ID of the last item on this page
+	 * @param value the ordering property value of the last item on this page (may be null)
+	 * @param more is there more items after this page
+	 * @param nextToken the ID of the last item as string which can be passed back to keeper
+	 * @param valueToken the ordering value as string which can be passed back to keeper
+	 */
+	public Page(List<T> items, Serializable next, Object value, boolean more, String nextToken, String valueToken) {
+		this.items = items;
+		this.next = next;
+		this.value = value;
+		this.more = more;
+		this.nextToken = nextToken;
+		this.valueToken = valueToken;
+	}
+
+	/**
+	 * @return The page items
+	 */
+	public List<T> getItems() {
+		return items;
+	}
+
+	/**
+	 * @return The continuation token (ID of the last item), or null if page is empty
+	 */
+	public Serializable getNext() {
+		return next;
+	}
+
+	/**
+	 * @return The ordering property value of the last item, or null for ID-ordered pages
+	 */
+	public Object getValue() {
+		return value;
+	}
+
+	/**
+	 * @return True if there are more items after this page
+	 */
+	public boolean isMore() {
+		return more;
+	}
+
+	/**
+	 * @return The continuation token as string (e.g. for query parameter), or null if page is empty
+	 */
+	@JsonIgnore
+	public String getNextToken() {
+		return nextToken;
+	}
+
+	/**
+	 * @return The ordering value as string (e.g. for query parameter), or null for ID-ordered pages
+	 */
+	@JsonIgnore
+	public String getValueToken() {
+		return valueToken;
+	}
+}
@@ -0,0 +1,122 @@
+package com.github.sarxos.hbrs.hb;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * Aggregated result of the parallel partitioned store. Every partition is stored in its own
+ * session and transaction, so partitions are committed or rolled back independently. When some
+ * partitions failed, entities from the remaining partitions are still stored in the database.
+ *
+ * @author Bartosz Firyn (sarxos)
+ * @param <T> the entity type
+ */
+public class PartitionedResult<T> {
+
+	/**
+	 * Result of a single partition.
+	 *
+	 * @param <T> the entity type
+	 */
+	public static class Partition<T> {
+
+		private final int index;
+		private final List<T> entities;
+		private final Throwable error;
+
+		/**
+		 * @param index the partition index
+		 * @param entities the partition entities
+		 * @param error the error or null if partition has been committed
+		 */
+		public Partition(int index, List<T> entities, Throwable error) {
+			this.index = index;
+			this.entities = entities;
+			this.error = error;
+		}
+
+		/**
+		 * @return The partition index
+		 */
+		public int getIndex() {
+			return index;
+		}
+
+		/**
+		 * @return The partition entities
+		 */
+		public List<T> getEntities() {
+			return entities;
+		}
+
+		/**
+		 * @return The error which caused partition rollback, or null if partition was committed
+		 */
+		public Throwable getError() {
+			return error;
+		}
+
+		/**
+		 * @return True if partition has been committed, false otherwise
+		 */
+		public boolean isCommitted() {
+			return error == null;
+		}
+	}
+
+	private final List<Partition<T>> partitions;
+
+	/**
+	 * @param partitions the partitions results
+	 */
+	public PartitionedResult(List<Partition<T>> partitions) {
+		this.partitions = Collections.unmodifiableList(partitions);
+	}
+
+	/**
+	 * @return All partitions in the original order
+	 */
+	public List<Partition<T>> getPartitions() {
+		return partitions;
+	}
+
+	/**
+	 * @return True if all partitions has been committed
+	 */
+	public boolean isCommitted() {
+		for (Partition<T> partition : partitions) {
+			if (!partition.isCommitted()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return Entities from committed partitions
+	 */
+	public List<T> getStored() {
+		List<T> stored = new ArrayList<>();
+		for (Partition<T> partition : partitions) {
+			if (partition.isCommitted()) {
+				stored.addAll(partition.getEntities());
+			}
+		}
+		return stored;
+	}
+
+	/**
+	 * @return Partitions which has been rolled back
+	 */
+	public List<Partition<T>> getFailed() {
+		List<Partition<T>> failed = new ArrayList<>();
+		for (Partition<T> partition : partitions) {
+			if (!partition.isCommitted()) {
+				failed.add(partition);
+			}
+		}
+		return failed;
+	}
+}
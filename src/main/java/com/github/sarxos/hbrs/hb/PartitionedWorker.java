@@ -0,0 +1,234 @@
+package com.github.sarxos.hbrs.hb;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Worker with many consumer lanes. Every lane is a separate {@link Worker} with its own thread,
+ * queue, persistence keeper and session. Items are routed to lanes by the partition key, so all
+ * items with the same key are worked out by the same lane in the order they were processed, while
+ * items with different keys are worked out concurrently.
+ *
+ * @author Bartosz Firyn (sarxos)
+ * @param <K> the persistence keeper type
+ * @param <T> the item type
+ */
+public abstract class PartitionedWorker<K extends PersistenceKeeper, T> {
+
+	private static final Logger LOG = LoggerFactory.getLogger(PartitionedWorker.class);
+
+	/**
+	 * Single lane delegating work to the partitioned worker.
+	 */
+	private final class Lane extends Worker<K, T> {
+
+		private final int number;
+
+		public Lane(Class<K> clazz, String name, int number, BlockingQueue<T> queue, boolean stateless) {
+			super(clazz, name, queue, false, stateless);
+			this.number = number;
+		}
+
+		@Override
+		public void work(K keeper, Session session, T item) {
+			PartitionedWorker.this.work(keeper, session, item);
+		}
+
+		@Override
+		public void workBatch(K keeper, Session session, List<T> items) {
+			PartitionedWorker.this.workBatch(keeper, session, items);
+		}
+
+		@Override
+		protected K create() {
+			return PartitionedWorker.this.create(number);
+		}
+	}
+
+	private final Class<K> clazz;
+
+	private final List<Lane> lanes;
+
+	/**
+	 * @param clazz the persistence keeper class to work with
+	 * @param name the worker name (lane number will be appended to form thread name)
+	 * @param lanes the number of lanes (threads)
+	 */
+	public PartitionedWorker(Class<K> clazz, String name, int lanes) {
+		this(clazz, name, lanes, 0, false, false);
+	}
+
+	/**
+	 * @param clazz the persistence keeper class to work with
+	 * @param name the worker name (lane number will be appended to form thread name)
+	 * @param lanes the number of lanes (threads)
+	 * @param capacity the capacity of every lane
+	 * @param start shall worker start immediately
+	 * @param stateless is worker stateless (will not create Hibernate session)
+	 */
+	public PartitionedWorker(Class<K> clazz, String name, int lanes, final int capacity, boolean start, boolean stateless) {
+		this(clazz, name, lanes, new QueueFactory<T>() {
+
+			@Override
+			public BlockingQueue<T> create(int lane) {
+				return new LinkedBlockingQueue<T>(capacity > 0 ? capacity : Integer.MAX_VALUE);
+			}
+		}, start, stateless);
+	}
+
+	/**
+	 * @param clazz the persistence keeper class to work with
+	 * @param name the worker name (lane number will be appended to form thread name)
+	 * @param lanes the number of lanes (threads)
+	 * @param queues the factory creating queue of every lane, e.g. {@link RingBufferQueue}
+	 * @param start shall worker start immediately
+	 * @param stateless is worker stateless (will not create Hibernate session)
+	 */
+	public PartitionedWorker(Class<K> clazz, String name, int lanes, QueueFactory<T> queues, boolean start, boolean stateless) {
+
+		if (lanes <= 0) {
+			throw new IllegalArgumentException("Number of lanes must be positive");
+		}
+		if (queues == null) {
+			throw new IllegalArgumentException("Queue factory cannot be null");
+		}
+
+		List<Lane> list = new ArrayList<>(lanes);
+		for (int i = 0; i < lanes; i++) {
+			list.add(new Lane(clazz, name + "-" + i, i, queues.create(i), stateless));
+		}
+
+		this.clazz = clazz;
+		this.lanes = Collections.unmodifiableList(list);
+
+		if (start) {
+			start();
+		}
+	}
+
+	public void start() {
+		for (Lane lane : lanes) {
+			lane.start();
+		}
+	}
+
+	public void stop() {
+		for (Lane lane : lanes) {
+			lane.stop();
+		}
+	}
+
+	public boolean isRunning() {
+		for (Lane lane : lanes) {
+			if (lane.isRunning()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return Workers serving particular lanes
+	 */
+	public List<? extends Worker<K, T>> getLanes() {
+		return lanes;
+	}
+
+	public void process(Collection<T> items) {
+		for (T item : items) {
+			process(item);
+		}
+	}
+
+	public void process(T item) {
+		lane(item).process(item);
+	}
+
+	/**
+	 * @param item the item
+	 * @return Lane which serves given item
+	 */
+	private Lane lane(T item) {
+
+		if (lanes.size() == 1) {
+			return lanes.get(0);
+		}
+
+		Object key = key(item);
+
+		int h = key == null ? 0 : key.hashCode();
+		h ^= h >>> 16;
+
+		return lanes.get((h & Integer.MAX_VALUE) % lanes.size());
+	}
+
+	/**
+	 * Get partition key of the item. Items with equal keys are always worked out by the same lane
+	 * in the order they were processed.
+	 *
+	 * @param item the item
+	 * @return Partition key (can be null)
+	 */
+	protected abstract Object key(T item);
+
+	/**
+	 * Work out single item. This method is invoked concurrently from all lanes, but every lane
+	 * passes its own keeper and session.
+	 *
+	 * @param keeper the lane persistence keeper
+	 * @param session the lane session
+	 * @param item the item to work out
+	 */
+	public abstract void work(K keeper, Session session, T item);
+
+	/**
+	 * Work out items drained by the lane for its current commit window, all in the same
+	 * transaction. This method is invoked concurrently from all lanes. Default implementation
+	 * works out items one by one, the same way as
+	 * {@link Worker#workBatch(PersistenceKeeper, Session, List)} does.
+	 *
+	 * @param keeper the lane persistence keeper
+	 * @param session the lane session
+	 * @param items the items to work out
+	 */
+	public void workBatch(K keeper, Session session, List<T> items) {
+		for (T item : items) {
+			try {
+				work(keeper, session, item);
+			} catch (HibernateException e) {
+				throw e;
+			} catch (Exception e) {
+				LOG.error(e.getMessage(), e);
+			}
+		}
+	}
+
+	/**
+	 * Create persistence keeper for the given lane. By default new instance of keeper class is
+	 * created.
+	 *
+	 * @param lane the lane number
+	 * @return New persistence keeper
+	 */
+	protected K create(int lane) {
+
+		K keeper = null;
+		try {
+			keeper = clazz.newInstance();
+		} catch (InstantiationException | IllegalAccessException e) {
+			throw new RuntimeException(e);
+		}
+
+		return keeper;
+	}
+}
@@ -1,11 +1,21 @@
 package com.github.sarxos.hbrs.hb;
 
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import javax.persistence.PrePersist;
+import javax.persistence.PreRemove;
+import javax.persistence.PreUpdate;
 
 import org.hibernate.EmptyInterceptor;
 import org.reflections.ReflectionUtils;
@@ -19,30 +29,104 @@ public class PersistenceHooks extends EmptyInterceptor {
 
 	private static final Logger LOG = LoggerFactory.getLogger(PersistenceHooks.class);
 
-	private static final Map<String, Boolean> ENABLED = new HashMap<String, Boolean>();
-	private static final Map<String, Set<Method>> HOOKS = new HashMap<String, Set<Method>>();
+	/**
+	 * Sentinel used for classes without hooks.
+	 */
+	private static final MethodHandle[] NONE = new MethodHandle[0];
+
+	/**
+	 * Type of the hook handles, all of them take entity and return nothing.
+	 */
+	private static final MethodType HOOK = MethodType.methodType(void.class, Object.class);
+
+	/**
+	 * Per-class hook handles annotated with given lifecycle annotation. Handles are computed once
+	 * per class and then read without locking.
+	 */
+	private static final class Registry extends ClassValue<MethodHandle[]> {
+
+		private final Class<? extends Annotation> annotation;
+
+		public Registry(Class<? extends Annotation> annotation) {
+			this.annotation = annotation;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		protected MethodHandle[] computeValue(Class<?> type) {
 
-	@SuppressWarnings("unchecked")
-	private static final Set<Method> getMethods(Class<?> clazz, Class<? extends Annotation> a) {
+			Set<Method> methods = ReflectionUtils.getAllMethods(type, ReflectionUtils.withAnnotation(annotation));
+			if (methods.isEmpty()) {
+				return NONE;
+			}
 
-		String key = String.format("%s@%s", clazz.getName(), a.getName());
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			MethodHandle[] handles = new MethodHandle[methods.size()];
+
+			int i = 0;
+			for (Method m : methods) {
+				if (!m.isAccessible()) {
+					m.setAccessible(true);
+				}
+				try {
+					handles[i++] = lookup.unreflect(m).asType(HOOK);
+				} catch (IllegalAccessException e) {
+					throw new IllegalStateException(String.format("Cannot access %s hook %s", annotation.getSimpleName(), m), e);
+				}
+			}
 
-		Boolean enabled = ENABLED.get(key);
+			LOG.debug("Found {} {} hooks in {}", handles.length, annotation.getSimpleName(), type);
 
-		if (Boolean.FALSE.equals(enabled)) {
-			return Collections.emptySet();
+			return handles;
 		}
+	}
+
+	private static final Registry PRE_PERSIST = new Registry(PrePersist.class);
+	private static final Registry POST_PERSIST = new Registry(PostPersist.class);
+	private static final Registry PRE_UPDATE = new Registry(PreUpdate.class);
+	private static final Registry POST_UPDATE = new Registry(PostUpdate.class);
+	private static final Registry PRE_REMOVE = new Registry(PreRemove.class);
+	private static final Registry POST_REMOVE = new Registry(PostRemove.class);
+	private static final Registry POST_LOAD = new Registry(PostLoad.class);
+
+	/**
+	 * Registries for annotations other than standard JPA lifecycle ones.
+	 */
+	private static final ConcurrentMap<Class<? extends Annotation>, Registry> OTHERS = new ConcurrentHashMap<>();
 
-		Set<Method> hooks = HOOKS.get(key);
+	private static Registry registry(Class<? extends Annotation> a) {
 
-		if (hooks == null) {
-			HOOKS.put(key, hooks = ReflectionUtils.getAllMethods(clazz, ReflectionUtils.withAnnotation(a)));
+		if (a == PostLoad.class) {
+			return POST_LOAD;
 		}
-		if (enabled == null) {
-			ENABLED.put(key, !hooks.isEmpty());
+		if (a == PrePersist.class) {
+			return PRE_PERSIST;
+		}
+		if (a == PreUpdate.class) {
+			return PRE_UPDATE;
+		}
+		if (a == PostPersist.class) {
+			return POST_PERSIST;
+		}
+		if (a == PostUpdate.class) {
+			return POST_UPDATE;
+		}
+		if (a == PreRemove.class) {
+			return PRE_REMOVE;
+		}
+		if (a == PostRemove.class) {
+			return POST_REMOVE;
 		}
 
-		return hooks;
+		Registry registry = OTHERS.get(a);
+		if (registry == null) {
+			Registry r = OTHERS.putIfAbsent(a, registry = new Registry(a));
+			if (r != null) {
+				registry = r;
+			}
+		}
+
+		return registry;
 	}
 
 	public static final void hook(Object entity, Class<? extends Annotation> a) {
@@ -52,13 +136,19 @@ public class PersistenceHooks extends EmptyInterceptor {
 			return;
 		}
 
+		MethodHandle[] hooks = registry(a).get(entity.getClass());
+		if (hooks == NONE) {
+			return;
+		}
+
 		LOG.trace("Invoking hook {} on {}", a, entity);
 
-		for (Method m : getMethods(entity.getClass(), a)) {
+		for (MethodHandle h : hooks) {
 			try {
-				m.setAccessible(true);
-				m.invoke(entity, new Object[0]);
-			} catch (Exception e) {
+				h.invokeExact(entity);
+			} catch (Error e) {
+				throw e;
+			} catch (Throwable e) {
 				throw new RuntimeException(e);
 			}
 		}
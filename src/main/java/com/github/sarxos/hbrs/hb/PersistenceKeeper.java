@@ -4,21 +4,66 @@ import java.io.Closeable;
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.StatelessSession;
+import org.hibernate.stat.SecondLevelCacheStatistics;
 
 
 public interface PersistenceKeeper extends Closeable {
 
 	/**
-	 * Dispose keeper. This will flush and destroy Hibernate session. Please note that L1 Hibernate
-	 * cache will not be affected by this operation.
+	 * Dispose keeper. This will flush and destroy Hibernate session (read-only keepers never
+	 * flush). Please note that L1 Hibernate cache will not be affected by this operation.
 	 */
 	@Override
 	void close();
 
+	/**
+	 * Is this keeper read-only. Read-only keeper never flushes its session, does not dirty-check
+	 * loaded entities and uses read-only JDBC transaction. Please check {@link ReadOnly}.
+	 *
+	 * @return True if keeper is read-only, false otherwise
+	 */
+	boolean isReadOnly();
+
+	/**
+	 * Begin unit of work. All subsequent keeper operations join the unit of work transaction
+	 * instead of committing their own ones, so the session is flushed and transaction committed
+	 * only once, when the unit of work is committed. Units of work can be nested, only the
+	 * outermost one commits the transaction.
+	 */
+	void begin();
+
+	/**
+	 * Commit unit of work. Transaction is committed when the outermost unit of work is committed.
+	 *
+	 * @throws IllegalStateException when nested unit of work has been rolled back, in which case
+	 *             the whole transaction is rolled back
+	 */
+	void commit();
+
+	/**
+	 * Rollback unit of work. Nested unit of work only marks transaction as rollback-only and the
+	 * whole transaction is rolled back when the outermost unit of work is committed or rolled back.
+	 * Keeper session is cleared on rollback, so all entities are detached from it.
+	 */
+	void rollback();
+
+	/**
+	 * Execute given work in a single transaction. Transaction is committed when work finishes and
+	 * rolled back when it throws exception. Nested calls join the outer transaction and their failure
+	 * causes the outer transaction to be rolled back.
+	 *
+	 * @param <R> the result type
+	 * @param work the work to be executed
+	 * @return Work result
+	 */
+	<R> R transaction(UnitOfWork<R> work);
+
 	/**
 	 * Get local session factory path (for this persistence keeper).
 	 *
@@ -55,6 +100,73 @@ public interface PersistenceKeeper extends Closeable {
 
 	<T extends Identity<?>> Collection<T> saveOrUpdate(Collection<T> entities);
 
+	/**
+	 * Will insert stateless (transient) entities with JDBC batch statements executed on a dedicated
+	 * stateless session in a single transaction. Entities are grouped by class and every group is
+	 * written in chunks of the default batch size. Entities are validated and persistence hooks
+	 * are invoked the same way as in {@link #persist(Collection)}, but entities are not attached to
+	 * the keeper session. Only entity rows are written, so entities which own collections (e.g.
+	 * {@code @ManyToMany} join tables) are rejected, use {@link #persist(Collection)} for them.
+	 *
+	 * @param <T> identity class
+	 * @param entities the transient entities to be inserted
+	 * @return Per-chunk results
+	 * @throws UnsupportedOperationException when any of the entities owns collections
+	 */
+	<T extends Identity<?>> List<BatchResult> persistBatch(Collection<T> entities);
+
+	/**
+	 * Will insert stateless (transient) entities with JDBC batch statements executed on a dedicated
+	 * stateless session in a single transaction.
+	 *
+	 * @param <T> identity class
+	 * @param entities the transient entities to be inserted
+	 * @param chunkSize the number of rows per one JDBC batch
+	 * @return Per-chunk results
+	 * @see #persistBatch(Collection)
+	 */
+	<T extends Identity<?>> List<BatchResult> persistBatch(Collection<T> entities, int chunkSize);
+
+	/**
+	 * Insert or update entities with native upsert statements (INSERT ... ON DUPLICATE KEY UPDATE
+	 * on MySQL, MERGE on H2) executed in JDBC batches on a dedicated stateless session in a single
+	 * transaction. Unlike {@link #saveOrUpdate(Collection)} this does not select entities to decide
+	 * between insert and update. All entities must have IDs assigned. Optimistic locking is not
+	 * applied, see {@link BatchUpsertWork} for how non-updatable and version columns are handled.
+	 *
+	 * @param <T> identity class
+	 * @param entities the entities to be written
+	 * @return Per-chunk results
+	 */
+	<T extends Identity<?>> List<BatchResult> upsert(Collection<T> entities);
+
+	/**
+	 * Insert or update entities with native upsert statements executed in JDBC batches.
+	 *
+	 * @param <T> identity class
+	 * @param entities the entities to be written
+	 * @param chunkSize the number of rows per one JDBC batch
+	 * @return Per-chunk results
+	 * @see #upsert(Collection)
+	 */
+	<T extends Identity<?>> List<BatchResult> upsert(Collection<T> entities, int chunkSize);
+
+	/**
+	 * Store entities in parallel. Collection is split into the given number of partitions and
+	 * every partition is validated, hooked and stored in its own session and transaction opened
+	 * from the keeper session factory. Partitions are committed independently, so when some of them
+	 * fail, the remaining ones are still stored. Please check returned result to find out which
+	 * partitions has been rolled back.
+	 *
+	 * @param <T> identity class
+	 * @param entities the entities to be stored
+	 * @param type the commit type
+	 * @param partitions the number of partitions, capped at
+	 *            {@link PersistenceKeeperImpl#getParallelism()}
+	 * @return Aggregated result
+	 */
+	<T extends Identity<?>> PartitionedResult<T> store(Collection<T> entities, CommitType type, int partitions);
+
 	/**
 	 * Fetch entity from the database and return managed instance.
 	 *
@@ -65,14 +177,59 @@ public interface PersistenceKeeper extends Closeable {
 	 */
 	<T> T get(Class<T> clazz, Serializable id);
 
+	/**
+	 * Fetch entities of given class with the specified IDs. Entities are served from the session
+	 * and second level cache first, and the remaining ones are loaded from the database with
+	 * chunked IN queries. Entities are returned in the order of requested IDs, IDs of entities
+	 * which do not exist in the database are skipped.
+	 *
+	 * @param <T> identity class
+	 * @param clazz the entity class to be fetched
+	 * @param ids the entities IDs
+	 * @return Return list of managed entities
+	 */
+	<T extends Identity<?>> List<T> getAll(Class<T> clazz, Collection<? extends Serializable> ids);
+
 	<T extends Identity<?>> T reget(T entity);
 
 	<T> T refresh(T entity);
 
+	/**
+	 * Count entities of given class. When count cache is enabled (by setting the
+	 * com.github.sarxos.hbrs.db.count_ttl property in Hibernate configuration to the number of
+	 * milliseconds), the count is cached per entity class and invalidated when entities of this
+	 * class are stored or deleted by any persistence keeper.
+	 *
+	 * @param <T> the entity class
+	 * @param clazz the entity class
+	 * @return Number of entities
+	 */
 	<T> int count(Class<T> clazz);
 
 	/**
-	 * Check if entity of given class and with the specified ID exists in the database.
+	 * Return approximate number of entities of given class. On MySQL the number is read from table
+	 * statistics, which is very fast for huge tables but can be inaccurate (for InnoDB the error can
+	 * be significant). For other databases exact count is returned.
+	 *
+	 * @param <T> the entity class
+	 * @param clazz the entity class
+	 * @return Approximate number of entities
+	 */
+	<T> long estimate(Class<T> clazz);
+
+	/**
+	 * Get statistics of the query cache region used for list, page and count queries of given
+	 * entity class (please check {@link CacheableQueries}). Statistics has to be enabled in
+	 * Hibernate configuration (hibernate.generate_statistics).
+	 *
+	 * @param clazz the entity class
+	 * @return Query cache region statistics or null if queries of given entity are not cacheable
+	 */
+	SecondLevelCacheStatistics getQueryCacheStatistics(Class<?> clazz);
+
+	/**
+	 * Check if entity of given class and with the specified ID exists in the database. Entity is not
+	 * hydrated, only session, second level cache and identifier projection query are used.
 	 *
 	 * @param <T> identity class
 	 * @param clazz the entity class
@@ -81,6 +238,18 @@ public interface PersistenceKeeper extends Closeable {
 	 */
 	<T extends Identity<?>> boolean exists(Class<T> clazz, Serializable id);
 
+	/**
+	 * Check which of the given IDs belong to entities existing in the database. Entities are not
+	 * loaded, only session, second level cache and identifiers index are checked.
+	 *
+	 * @param <T> identity class
+	 * @param <I> identifier class
+	 * @param clazz the entity class
+	 * @param ids the entities IDs
+	 * @return Subset of IDs which exist in the database (in the request order)
+	 */
+	<T extends Identity<?>, I extends Serializable> Set<I> existing(Class<T> clazz, Collection<I> ids);
+
 	/**
 	 * This method will return all instances of given entity. Be careful when using this method
 	 * because there can be millions of records in the database, and thus, your memory consumption
@@ -103,8 +272,110 @@ public interface PersistenceKeeper extends Closeable {
 	 */
 	<T> List<T> list(Class<T> clazz, int pgNum, int pgSize);
 
+	/**
+	 * Return lightweight views of all entities of given class. Only given properties are selected
+	 * from the database and returned as ordered maps (property name to value), so no entity is
+	 * loaded into the persistence context. When no properties are given, identifier and all basic
+	 * properties visible in REST interface are selected.
+	 *
+	 * @param <T> identity class
+	 * @param clazz the entity class
+	 * @param properties the names of identifier or basic properties to be selected
+	 * @return List of detached property maps
+	 */
+	<T> List<Map<String, Object>> view(Class<T> clazz, String... properties);
+
+	/**
+	 * Return paged lightweight views of entities of given class, see
+	 * {@link #view(Class, String...)}.
+	 *
+	 * @param <T> identity class
+	 * @param clazz the entity class
+	 * @param pgNum the page number
+	 * @param pgSize the max number of records per page
+	 * @param properties the names of identifier or basic properties to be selected
+	 * @return List of detached property maps
+	 */
+	<T> List<Map<String, Object>> view(Class<T> clazz, int pgNum, int pgSize, String... properties);
+
+	/**
+	 * Return page of entities ordered by ID, starting right after the entity with given ID. This is
+	 * keyset (seek) pagination, so the database does not have to scan and skip offset rows and the
+	 * cost of fetching page does not depend on how deep the page is.
+	 *
+	 * @param <T> identity class
+	 * @param clazz the entity class
+	 * @param lastId the ID of the last entity from previous page (continuation token), or null to
+	 *            fetch the first page; it can also be given as {@link Page#getNextToken()} string
+	 * @param pgSize the max number of records per page
+	 * @return Page with entities and continuation token
+	 */
+	<T extends Identity<?>> Page<T> listAfter(Class<T> clazz, Serializable lastId, int pgSize);
+
+	/**
+	 * Return page of entities ordered by given property (and ID to break ties), starting right after
+	 * the entity with given property value and ID. The property should be indexed (together with ID)
+	 * and must not contain null values.
+	 *
+	 * @param <T> identity class
+	 * @param clazz the entity class
+	 * @param property the ordering property name
+	 * @param lastValue the property value of the last entity from previous page, it can also be
+	 *            given as {@link Page#getValueToken()} string
+	 * @param lastId the ID of the last entity from previous page, or null to fetch the first page
+	 * @param pgSize the max number of records per page
+	 * @return Page with entities and continuation token
+	 * @see #listAfter(Class, Serializable, int)
+	 */
+	<T extends Identity<?>> Page<T> listAfter(Class<T> clazz, String property, Object lastValue, Serializable lastId, int pgSize);
+
+	/**
+	 * Return forward-only cursor over all entities of given class. Entities are loaded into the
+	 * keeper session and every entity is evicted from it when the next one is fetched. Since
+	 * eviction does not reach associations which are not cascaded, the whole keeper session is also
+	 * flushed and cleared every batch size rows, so all other entities held in the keeper session
+	 * are detached as well. Use {@link #stream(Class)} to iterate without touching the keeper
+	 * session. Cursor has to be closed when no longer needed.
+	 *
+	 * @param <T> identity class
+	 * @param clazz the entity class
+	 * @return Cursor iterator
+	 */
 	<T extends Identity<?>> ScrollableResultsIterator<T> cursor(Class<T> clazz);
 
+	/**
+	 * Return forward-only cursor over all entities of given class, backed by the dedicated
+	 * stateless session, so keeper session is not touched at all and memory consumption does not
+	 * depend on the number of rows. Returned entities are detached and their lazy associations
+	 * cannot be initialized. Cursor (and the stateless session) has to be closed when no longer
+	 * needed.
+	 *
+	 * @param <T> identity class
+	 * @param clazz the entity class
+	 * @return Cursor iterator
+	 */
+	<T extends Identity<?>> ScrollableResultsIterator<T> stream(Class<T> clazz);
+
+	/**
+	 * Scan all entities of given class in parallel. Range of IDs is split into given number of
+	 * partitions and every partition is read by its own stateless session in a separate thread.
+	 * In unordered mode entities are passed to the consumer directly from the partition threads,
+	 * so consumer has to be thread-safe. In ordered mode entities are passed to the consumer from
+	 * the calling thread in the ascending ID order, while partitions are read ahead into bounded
+	 * buffers. When consumer or any partition fails, the remaining partitions are cancelled and the
+	 * failure is rethrown once all of them have stopped. Only entities with integral identifiers can
+	 * be scanned.
+	 *
+	 * @param <T> identity class
+	 * @param clazz the entity class
+	 * @param partitions the number of partitions (and threads), capped at
+	 *            {@link PersistenceKeeperImpl#getParallelism()}
+	 * @param consumer the entities consumer
+	 * @param ordered should entities be consumed in ID order
+	 * @return Number of entities read
+	 */
+	<T extends Identity<?>> long scan(Class<T> clazz, int partitions, ScanConsumer<? super T> consumer, boolean ordered);
+
 	/**
 	 * Will persist stateless (transient) entity. This method will validate entity against possible
 	 * constraints violation.
@@ -159,7 +430,21 @@ public interface PersistenceKeeper extends Closeable {
 	<T> T hydrate(T dry, T managed);
 
 	/**
-	 * Delete given entity.
+	 * This method takes dry object taken directly from the REST layer and writes all non-null
+	 * fields visible in the REST interface directly into the database with a single update
+	 * statement, without loading the entity first. Only the written properties are validated.
+	 * Persistence hooks are invoked on the dry object. Managed instance of the entity (if any) is
+	 * evicted from the session and second level cache.
+	 *
+	 * @param <T> identity class
+	 * @param dry the dry REST object with ID set
+	 * @return True if entity has been updated, false if it does not exist or nothing was set
+	 */
+	<T extends Identity<?>> boolean patch(T dry);
+
+	/**
+	 * Delete given entity. Within unit of work entity is detached (and its ID set to null) only when
+	 * the unit of work is committed.
 	 *
 	 * @param <T> the identity class
 	 * @param entity the entity to be removed
@@ -168,7 +453,8 @@ public interface PersistenceKeeper extends Closeable {
 	<T extends Identity<?>> T delete(T entity);
 
 	/**
-	 * Delete list of entities.
+	 * Delete list of entities. Within unit of work entities are detached (and their IDs set to null)
+	 * only when the unit of work is committed.
 	 *
 	 * @param <T> the identity class
 	 * @param entities the entities to be removed
@@ -186,6 +472,19 @@ public interface PersistenceKeeper extends Closeable {
 	 */
 	<T extends Identity<?>> boolean delete(Class<T> clazz, Serializable id);
 
+	/**
+	 * Delete entities of given class with the specified IDs. Entities are removed with bulk delete
+	 * statements (chunked by the IN clause size) executed in a single transaction, so entities are
+	 * not loaded and persistence hooks are not invoked. Removed entities are evicted from the
+	 * session and second level cache.
+	 *
+	 * @param <T> the identity class
+	 * @param clazz the entity class
+	 * @param ids the entities IDs
+	 * @return Number of removed entities
+	 */
+	<T extends Identity<?>> int delete(Class<T> clazz, Collection<? extends Serializable> ids);
+
 	/**
 	 * Evict entity.
 	 *
@@ -213,6 +512,18 @@ public interface PersistenceKeeper extends Closeable {
 	 */
 	<T> T lazyload(T entity);
 
+	/**
+	 * Initialize all lazy-loaded first-level entities which are not JSON-ignored in every entity
+	 * from the given collection. Uninitialized proxies and collections are grouped by association
+	 * and loaded with one query per association (and per chunk of IDs, see
+	 * {@link PersistenceKeeperImpl#getInSize()}) instead of one query per entity and field.
+	 *
+	 * @param <T> the identity class
+	 * @param entities the entities from which fields will be lazy loaded
+	 * @return Return the same collection with lazy fields initialized
+	 */
+	<T> Collection<T> lazyload(Collection<T> entities);
+
 	<T extends Identity<?>> T load(Class<T> clazz, Serializable id);
 
 }
\ No newline at end of file
@@ -4,17 +4,34 @@ import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
-import java.lang.annotation.Annotation;
 import java.lang.management.ManagementFactory;
 import java.lang.reflect.Field;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.annotation.ManagedBean;
 import javax.management.InstanceNotFoundException;
@@ -23,11 +40,7 @@ import javax.management.MBeanServer;
 import javax.management.MalformedObjectNameException;
 import javax.management.ObjectName;
 import javax.management.ReflectionException;
-import javax.persistence.Column;
 import javax.persistence.Entity;
-import javax.persistence.ManyToMany;
-import javax.persistence.ManyToOne;
-import javax.persistence.OneToMany;
 import javax.persistence.PostLoad;
 import javax.persistence.PostPersist;
 import javax.persistence.PostRemove;
@@ -43,6 +56,10 @@ import javax.xml.xpath.XPathException;
 
 import org.glassfish.jersey.process.internal.RequestScoped;
 import org.hibernate.AssertionFailure;
+import org.hibernate.Cache;
+import org.hibernate.ConnectionReleaseMode;
+import org.hibernate.EntityMode;
+import org.hibernate.FlushMode;
 import org.hibernate.Hibernate;
 import org.hibernate.HibernateException;
 import org.hibernate.Query;
@@ -52,16 +69,28 @@ import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.StatelessSession;
 import org.hibernate.Transaction;
+import org.hibernate.cache.StandardQueryCache;
 import org.hibernate.cfg.AnnotationConfiguration;
 import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Settings;
+import org.hibernate.collection.PersistentCollection;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.engine.EntityKey;
+import org.hibernate.engine.SessionFactoryImplementor;
+import org.hibernate.engine.SessionImplementor;
 import org.hibernate.metadata.ClassMetadata;
+import org.hibernate.jdbc.Work;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.proxy.LazyInitializer;
+import org.hibernate.stat.SecondLevelCacheStatistics;
 import org.reflections.Reflections;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xml.sax.SAXException;
 
-import com.fasterxml.jackson.annotation.JsonIgnore;
-import com.fasterxml.jackson.annotation.JsonProperty;
 
 
 /**
@@ -73,19 +102,6 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 @RequestScoped
 public abstract class PersistenceKeeperImpl implements Closeable, PersistenceKeeper {
 
-	private static enum CommitType {
-
-		SAVE,
-
-		UPDATE,
-
-		SAVE_OR_UPDATE,
-
-		MERGE,
-
-		PERSIST,
-	}
-
 	/**
 	 * Logger.
 	 */
@@ -116,6 +132,53 @@ public abstract class PersistenceKeeperImpl implements Closeable, PersistenceKee
 	 */
 	private static int batchSize = 50;
 
+	/**
+	 * Maximum number of identifiers used in a single SQL IN clause.
+	 */
+	private static int inSize = 1000;
+
+	/**
+	 * Time (in milliseconds) for which entity count is cached, 0 means no caching.
+	 */
+	private static long countTtl = 0;
+
+	/**
+	 * Maximum number of threads used by parallel keeper operations.
+	 */
+	private static int parallelism = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Executor shared by parallel keeper operations, created on first use.
+	 */
+	private static ExecutorService pool;
+
+	/**
+	 * Cached entities count.
+	 */
+	private static final ConcurrentHashMap<Class<?>, CachedCount> COUNTS = new ConcurrentHashMap<>();
+
+	/**
+	 * End of partition marker used in ordered scan.
+	 */
+	private static final Object END = new Object();
+
+	/**
+	 * Entities count with the time when it has been read from the database.
+	 */
+	private static final class CachedCount {
+
+		private final int count;
+		private final long timestamp = System.currentTimeMillis();
+
+		public CachedCount(int count) {
+			this.count = count;
+		}
+
+		public boolean isValid() {
+			return System.currentTimeMillis() - timestamp < countTtl;
+		}
+	}
+
 	/**
 	 * Stateful session.
 	 */
@@ -131,7 +194,51 @@ public abstract class PersistenceKeeperImpl implements Closeable, PersistenceKee
 	 */
 	protected AtomicBoolean closed = new AtomicBoolean();
 
+	/**
+	 * Is read-only.
+	 */
+	protected final boolean readOnly;
+
+	/**
+	 * Transaction wrapping read-only session.
+	 */
+	private Transaction readOnlyTransaction;
+
+	/**
+	 * Transaction of the current unit of work.
+	 */
+	private Transaction unit;
+
+	/**
+	 * Unit of work nesting depth.
+	 */
+	private int depth;
+
+	/**
+	 * Has nested unit of work failed, so the outermost one has to roll back.
+	 */
+	private boolean rollbackOnly;
+
+	/**
+	 * Actions deferred until the unit of work transaction is committed.
+	 */
+	private final List<Runnable> committed = new ArrayList<>();
+
 	public PersistenceKeeperImpl() {
+		this(false);
+	}
+
+	/**
+	 * @param readOnly should keeper be read-only (keepers annotated with {@link ReadOnly} are
+	 *            always read-only)
+	 */
+	protected PersistenceKeeperImpl(boolean readOnly) {
+		this.readOnly = readOnly || getClass().isAnnotationPresent(ReadOnly.class);
+	}
+
+	@Override
+	public boolean isReadOnly() {
+		return readOnly;
 	}
 
 	@Override
@@ -141,11 +248,27 @@ public abstract class PersistenceKeeperImpl implements Closeable, PersistenceKee
 
 			LOG.debug("Closing {} persistence keeper", getClass());
 
+			boolean rolledBack = false;
+
+			if (unit != null) {
+				LOG.warn("Keeper {} closed with unit of work in progress, rolling back", getClass());
+				Transaction t = unit;
+				depth = 0;
+				rollbackOnly = false;
+				unit = null;
+				rollbackUnit(t);
+				rolledBack = true;
+			}
+
 			if (session != null && session.isOpen()) {
-				try {
-					session.flush();
-				} catch (AssertionFailure | HibernateException e) {
-					session.clear();
+				if (readOnly) {
+					closeReadOnly(session);
+				} else if (!rolledBack) {
+					try {
+						session.flush();
+					} catch (AssertionFailure | HibernateException e) {
+						session.clear();
+					}
 				}
 				session.close();
 			}
@@ -366,10 +489,30 @@ public abstract class PersistenceKeeperImpl implements Closeable, PersistenceKee
 		return batchSize;
 	}
 
+	/**
+	 * @return Maximum number of identifiers used in a single SQL IN clause
+	 */
+	public static int getInSize() {
+		return inSize;
+	}
+
+	/**
+	 * @return Maximum number of threads (and partitions) used by parallel keeper operations
+	 */
+	public static int getParallelism() {
+		return parallelism;
+	}
+
 	/**
 	 * Shutdown persistence keeper. This operation will close session factory.
 	 */
 	public static void shutdown() {
+		synchronized (PersistenceKeeperImpl.class) {
+			if (pool != null) {
+				pool.shutdownNow();
+				pool = null;
+			}
+		}
 		for (SessionFactory factory : FACTORIES.values()) {
 			factory.close();
 		}
@@ -382,9 +525,272 @@ public abstract class PersistenceKeeperImpl implements Closeable, PersistenceKee
 			throw new IllegalStateException("Keeper has been already closed");
 		}
 		if (session == null) {
-			return session = getSessionFactory().openSession();
+			if (readOnly) {
+				openReadOnly(session = openSessionOnClose());
+			} else {
+				session = getSessionFactory().openSession();
+			}
+		}
+		return session;
+	}
+
+	/**
+	 * Open session which keeps its JDBC connection until it is closed, so connection switched into
+	 * read-only mode outside of transaction is the same one which is later used by transaction, and
+	 * it is not returned to the pool before it is reset.
+	 *
+	 * @return New session
+	 */
+	private Session openSessionOnClose() {
+		SessionFactoryImplementor sfi = (SessionFactoryImplementor) getSessionFactory();
+		Settings settings = sfi.getSettings();
+		return sfi.openSession(null, settings.isFlushBeforeCompletionEnabled(), settings.isAutoCloseSessionEnabled(), ConnectionReleaseMode.ON_CLOSE);
+	}
+
+	/**
+	 * Switch session into read-only mode. Session will never be flushed, entities loaded into it
+	 * will not be dirty-checked and the whole session will be wrapped in read-only transaction.
+	 * Connection is switched into read-only mode before transaction begins, as JDBC does not allow
+	 * to change it in the middle of transaction.
+	 *
+	 * @param s the session
+	 */
+	private void openReadOnly(Session s) {
+
+		s.setFlushMode(FlushMode.MANUAL);
+		s.setDefaultReadOnly(true);
+
+		s.doWork(new Work() {
+
+			@Override
+			public void execute(Connection connection) throws SQLException {
+				connection.setReadOnly(true);
+			}
+		});
+
+		readOnlyTransaction = s.beginTransaction();
+	}
+
+	/**
+	 * End read-only transaction and reset connection to the default mode. Transaction is rolled
+	 * back because nothing has been written. Connection is reset after transaction ends, as JDBC
+	 * does not allow to change it in the middle of transaction.
+	 *
+	 * @param s the session
+	 */
+	private void closeReadOnly(Session s) {
+		try {
+			if (readOnlyTransaction != null && readOnlyTransaction.isActive()) {
+				readOnlyTransaction.rollback();
+			}
+		} catch (HibernateException e) {
+			LOG.error("Cannot end read-only transaction", e);
+		} finally {
+			try {
+				s.doWork(new Work() {
+
+					@Override
+					public void execute(Connection connection) throws SQLException {
+						connection.setReadOnly(false);
+					}
+				});
+			} catch (HibernateException e) {
+				LOG.error("Cannot reset read-only connection", e);
+			}
+		}
+	}
+
+	@Override
+	public void begin() {
+
+		writable();
+
+		if (depth == 0) {
+			unit = session().beginTransaction();
+			rollbackOnly = false;
+			committed.clear();
+		}
+
+		depth++;
+	}
+
+	@Override
+	public void commit() {
+
+		if (depth == 0) {
+			throw new IllegalStateException("No unit of work is in progress");
+		}
+
+		if (--depth > 0) {
+			return;
+		}
+
+		Transaction t = unit;
+		boolean rollback = rollbackOnly;
+
+		unit = null;
+		rollbackOnly = false;
+
+		if (rollback) {
+			rollbackUnit(t);
+			throw new IllegalStateException("Unit of work has been marked rollback-only by the nested one, transaction rolled back");
+		}
+
+		List<Runnable> actions = new ArrayList<>(committed);
+		committed.clear();
+
+		try {
+			t.commit();
+		} catch (HibernateException e) {
+			rollbackUnit(t);
+			throw e;
+		}
+
+		for (Runnable action : actions) {
+			action.run();
+		}
+	}
+
+	@Override
+	public void rollback() {
+
+		if (depth == 0) {
+			throw new IllegalStateException("No unit of work is in progress");
+		}
+
+		if (--depth > 0) {
+			rollbackOnly = true;
+			return;
+		}
+
+		Transaction t = unit;
+
+		unit = null;
+		rollbackOnly = false;
+
+		rollbackUnit(t);
+	}
+
+	@Override
+	public <R> R transaction(UnitOfWork<R> work) {
+
+		begin();
+
+		boolean done = false;
+
+		try {
+			R result = work.execute(this);
+			done = true;
+			return result;
+		} finally {
+			if (done) {
+				commit();
+			} else if (depth > 0) {
+				rollback();
+			}
+		}
+	}
+
+	/**
+	 * Begin new transaction in the given session, unless the keeper session is used and unit of
+	 * work is in progress, in which case operation joins the unit of work transaction.
+	 *
+	 * @param s the session
+	 * @return New transaction, or null when unit of work transaction is joined
+	 */
+	private Transaction beginTransaction(Session s) {
+		if (unit != null && s == session) {
+			return null;
+		}
+		return s.beginTransaction();
+	}
+
+	/**
+	 * Commit transaction returned by {@link #beginTransaction(Session)}.
+	 *
+	 * @param t the transaction, null when unit of work transaction has been joined
+	 */
+	private void commitTransaction(Transaction t) {
+		if (t != null) {
+			t.commit();
+		}
+	}
+
+	/**
+	 * Rollback unit of work transaction and clear the session. After rollback the connection is
+	 * back in auto-commit mode, so changes made within unit of work which are still held in the
+	 * session must never be flushed. Deferred actions are discarded.
+	 *
+	 * @param t the unit of work transaction
+	 */
+	private void rollbackUnit(Transaction t) {
+		committed.clear();
+		try {
+			rollbackTransaction(t);
+		} finally {
+			if (session != null && session.isOpen()) {
+				session.clear();
+			}
+		}
+	}
+
+	/**
+	 * Run action after the transaction returned by {@link #beginTransaction(Session)} has been
+	 * committed. When unit of work transaction has been joined, action is deferred until the
+	 * outermost unit of work is committed, and discarded when it's rolled back.
+	 *
+	 * @param t the transaction, null when unit of work transaction has been joined
+	 * @param action the action to run
+	 */
+	private void afterCommit(Transaction t, Runnable action) {
+		if (t == null && unit != null) {
+			committed.add(action);
+		} else {
+			action.run();
+		}
+	}
+
+	/**
+	 * Rollback transaction returned by {@link #beginTransaction(Session)}. Joined unit of work
+	 * transaction is not rolled back here, it's only marked rollback-only and the outermost unit of
+	 * work rolls it back.
+	 *
+	 * @param t the transaction, null when unit of work transaction has been joined
+	 */
+	private void rollbackTransaction(Transaction t) {
+		if (t == null) {
+			if (unit != null) {
+				rollbackOnly = true;
+			}
 		} else {
-			return session;
+			try {
+				t.rollback();
+			} catch (Exception e) {
+				LOG.error("Cannot rollback", e);
+			}
+		}
+	}
+
+	/**
+	 * Make sure no unit of work is in progress, for operations which use their own sessions and
+	 * thus cannot join unit of work transaction.
+	 *
+	 * @throws IllegalStateException when unit of work is in progress
+	 */
+	private void standalone() {
+		if (unit != null) {
+			throw new IllegalStateException("This operation cannot be executed within unit of work");
+		}
+	}
+
+	/**
+	 * Make sure this keeper can modify database.
+	 *
+	 * @throws IllegalStateException when keeper is read-only
+	 */
+	private void writable() {
+		if (readOnly) {
+			throw new IllegalStateException("Keeper " + getClass().getName() + " is read-only");
 		}
 	}
 
@@ -399,14 +805,6 @@ public abstract class PersistenceKeeperImpl implements Closeable, PersistenceKee
 		return statelessSession;
 	}
 
-	private <T> boolean isEntity(Class<T> c) {
-		Class<?> cc = c;
-		if (cc.getAnnotation(Entity.class) == null) {
-			return (cc = cc.getSuperclass()) == null ? false : isEntity(cc);
-		}
-		return true;
-	}
-
 	@Override
 	public <T extends Identity<?>> Collection<T> persist(Collection<T> entities) {
 		return store(entities, CommitType.PERSIST);
@@ -440,6 +838,91 @@ public abstract class PersistenceKeeperImpl implements Closeable, PersistenceKee
 		return entity;
 	}
 
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T extends Identity<?>> List<T> getAll(Class<T> clazz, Collection<? extends Serializable> ids) {
+
+		if (clazz == null) {
+			throw new IllegalArgumentException("Database entity class cannot be null");
+		}
+		if (ids == null) {
+			throw new IllegalArgumentException("Database entity IDs cannot be null");
+		}
+		if (!EntityDescriptor.of(clazz).isEntity()) {
+			throw new IllegalArgumentException(String.format("Class %s is not a database entity", clazz.getName()));
+		}
+
+		SessionFactory sf = getSessionFactory();
+		EntityDescriptor ed = EntityDescriptor.of(clazz);
+
+		// identifiers of loaded entities are of the mapped type, so caller IDs have to be of the
+		// same type to be found in the results map
+
+		Set<Serializable> unique = new LinkedHashSet<Serializable>();
+		for (Serializable id : ids) {
+			if (id == null) {
+				throw new IllegalArgumentException("Database entity ID cannot be null");
+			}
+			unique.add(ed.toIdentifier(sf, id));
+		}
+
+		Map<Serializable, T> found = new HashMap<>();
+		List<Serializable> missing = new ArrayList<>();
+
+		Session s = session();
+		Cache cache = sf.getCache();
+
+		// serve from session first, then from second level cache (session get will not hit the
+		// database when entity is in the cache)
+
+		for (Serializable id : unique) {
+
+			T entity = (T) managed(clazz, id);
+
+			if (entity == null && cache.containsEntity(clazz, id)) {
+				entity = (T) s.get(clazz, id);
+			}
+
+			if (entity == null) {
+				missing.add(id);
+			} else {
+				found.put(id, entity);
+			}
+		}
+
+		// load remaining entities in chunks
+
+		if (!missing.isEmpty()) {
+
+			String hql = ed.getSelectByIdsHql(sf);
+
+			for (int offset = 0; offset < missing.size(); offset += inSize) {
+
+				List<T> entities = s
+					.createQuery(hql)
+					.setParameterList("ids", missing.subList(offset, Math.min(offset + inSize, missing.size())))
+					.setCacheable(false)
+					.list();
+
+				for (T entity : entities) {
+					found.put(entity.getId(), entity);
+				}
+			}
+		}
+
+		List<T> entities = new ArrayList<>(found.size());
+
+		for (Serializable id : unique) {
+			T entity = found.get(id);
+			if (entity != null) {
+				PersistenceHooks.hook(entity, PostLoad.class);
+				entities.add(entity);
+			}
+		}
+
+		return entities;
+	}
+
 	@Override
 	@SuppressWarnings("unchecked")
 	public <T extends Identity<?>> T reget(T entity) {
@@ -475,19 +958,190 @@ public abstract class PersistenceKeeperImpl implements Closeable, PersistenceKee
 		if (clazz == null) {
 			throw new IllegalArgumentException("Database entity class cannot be null");
 		}
-		if (!isEntity(clazz)) {
+		if (!EntityDescriptor.of(clazz).isEntity()) {
 			throw new IllegalArgumentException(String.format("Class %s is not a database entity", clazz.getName()));
 		}
 
-		long count = (Long) session()
-			.createQuery(String.format("select count(1) from %s", clazz.getSimpleName()))
+		CachedCount cached = countTtl > 0 ? COUNTS.get(clazz) : null;
+		if (cached != null && cached.isValid()) {
+			return cached.count;
+		}
+
+		long count = (Long) cacheable(session().createQuery(EntityDescriptor.of(clazz).getCountHql()), clazz)
 			.uniqueResult();
 
+		if (countTtl > 0) {
+			COUNTS.put(clazz, new CachedCount((int) count));
+		}
+
 		return (int) count;
 	}
 
-	@Override
-	public <T extends Identity<?>> boolean exists(Class<T> clazz, Serializable id) {
+	/**
+	 * Make query cacheable when entity class is annotated with {@link CacheableQueries}.
+	 *
+	 * @param query the query
+	 * @param clazz the entity class
+	 * @return The same query
+	 */
+	private static Query cacheable(Query query, Class<?> clazz) {
+
+		CacheableQueries cq = EntityDescriptor.of(clazz).getCacheableQueries();
+		if (cq == null) {
+			return query.setCacheable(false);
+		}
+
+		query.setCacheable(true);
+
+		if (!cq.region().isEmpty()) {
+			query.setCacheRegion(cq.region());
+		}
+
+		return query;
+	}
+
+	@Override
+	public SecondLevelCacheStatistics getQueryCacheStatistics(Class<?> clazz) {
+
+		if (clazz == null) {
+			throw new IllegalArgumentException("Database entity class cannot be null");
+		}
+
+		CacheableQueries cq = EntityDescriptor.of(clazz).getCacheableQueries();
+		if (cq == null) {
+			return null;
+		}
+
+		SessionFactoryImplementor sfi = (SessionFactoryImplementor) getSessionFactory();
+
+		String region = cq.region().isEmpty() ? StandardQueryCache.class.getName() : cq.region();
+		String prefix = sfi.getSettings().getCacheRegionPrefix();
+
+		if (prefix != null) {
+			region = prefix + '.' + region;
+		}
+
+		return sfi.getStatistics().getSecondLevelCacheStatistics(region);
+	}
+
+	@Override
+	public <T> long estimate(Class<T> clazz) {
+
+		if (clazz == null) {
+			throw new IllegalArgumentException("Database entity class cannot be null");
+		}
+		if (!EntityDescriptor.of(clazz).isEntity()) {
+			throw new IllegalArgumentException(String.format("Class %s is not a database entity", clazz.getName()));
+		}
+
+		SessionFactoryImplementor sfi = (SessionFactoryImplementor) getSessionFactory();
+		EntityPersister ep = sfi.getEntityPersister(clazz.getName());
+
+		if (!(sfi.getDialect() instanceof MySQLDialect) || !(ep instanceof AbstractEntityPersister)) {
+			return count(clazz);
+		}
+
+		// table name can be qualified with schema name and quoted
+
+		String table = ((AbstractEntityPersister) ep).getTableName().replace("`", "");
+		String schema = null;
+
+		int dot = table.lastIndexOf('.');
+		if (dot > 0) {
+			schema = table.substring(0, dot);
+			table = table.substring(dot + 1);
+		}
+
+		Query query = session()
+			.createSQLQuery("select TABLE_ROWS from information_schema.TABLES where TABLE_SCHEMA = " + (schema == null ? "database()" : ":schema") + " and TABLE_NAME = :table")
+			.setParameter("table", table);
+
+		if (schema != null) {
+			query.setParameter("schema", schema);
+		}
+
+		Number rows = (Number) query.uniqueResult();
+
+		if (rows == null) {
+			LOG.debug("No table statistics for {}, fallback to exact count", clazz);
+			return count(clazz);
+		}
+
+		return rows.longValue();
+	}
+
+	/**
+	 * Invalidate cached count of given entity class and all its superclasses.
+	 *
+	 * @param clazz the entity class
+	 */
+	private static void invalidate(Class<?> clazz) {
+		if (COUNTS.isEmpty()) {
+			return;
+		}
+		for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+			COUNTS.remove(c);
+		}
+	}
+
+	/**
+	 * Invalidate cached counts of classes of given entities.
+	 *
+	 * @param entities the entities
+	 */
+	private static void invalidate(Collection<?> entities) {
+		if (COUNTS.isEmpty()) {
+			return;
+		}
+		Set<Class<?>> classes = new HashSet<>();
+		for (Object entity : entities) {
+			if (classes.add(entity.getClass())) {
+				invalidate(entity.getClass());
+			}
+		}
+	}
+
+	/**
+	 * Invalidate cached count of given entity class once the transaction is committed, so the
+	 * concurrent count cannot cache value from before the commit.
+	 *
+	 * @param t the transaction, null when unit of work transaction has been joined
+	 * @param clazz the entity class
+	 */
+	private void invalidate(Transaction t, final Class<?> clazz) {
+		afterCommit(t, new Runnable() {
+
+			@Override
+			public void run() {
+				invalidate(clazz);
+			}
+		});
+	}
+
+	/**
+	 * Invalidate cached counts of classes of given entities once the transaction is committed.
+	 *
+	 * @param t the transaction, null when unit of work transaction has been joined
+	 * @param entities the entities
+	 */
+	private void invalidate(Transaction t, Collection<?> entities) {
+		final Set<Class<?>> classes = new HashSet<>();
+		for (Object entity : entities) {
+			classes.add(entity.getClass());
+		}
+		afterCommit(t, new Runnable() {
+
+			@Override
+			public void run() {
+				for (Class<?> clazz : classes) {
+					invalidate(clazz);
+				}
+			}
+		});
+	}
+
+	@Override
+	public <T extends Identity<?>> boolean exists(Class<T> clazz, Serializable id) {
 
 		if (clazz == null) {
 			throw new IllegalArgumentException("Database entity class cannot be null");
@@ -495,11 +1149,79 @@ public abstract class PersistenceKeeperImpl implements Closeable, PersistenceKee
 		if (id == null) {
 			throw new IllegalArgumentException("Entity ID cannot benull");
 		}
-		if (!isEntity(clazz)) {
+		if (!EntityDescriptor.of(clazz).isEntity()) {
+			throw new IllegalArgumentException(String.format("Class %s is not a database entity", clazz.getName()));
+		}
+
+		if (managed(clazz, id) != null || getSessionFactory().getCache().containsEntity(clazz, id)) {
+			return true;
+		}
+
+		return session()
+			.createQuery(EntityDescriptor.of(clazz).getExistsHql(getSessionFactory()))
+			.setParameter("id", id)
+			.setMaxResults(1)
+			.setCacheable(false)
+			.uniqueResult() != null;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T extends Identity<?>, I extends Serializable> Set<I> existing(Class<T> clazz, Collection<I> ids) {
+
+		if (clazz == null) {
+			throw new IllegalArgumentException("Database entity class cannot be null");
+		}
+		if (ids == null) {
+			throw new IllegalArgumentException("Entity IDs cannot be null");
+		}
+		if (!EntityDescriptor.of(clazz).isEntity()) {
 			throw new IllegalArgumentException(String.format("Class %s is not a database entity", clazz.getName()));
 		}
 
-		return session().get(clazz, id) != null;
+		SessionFactory sf = getSessionFactory();
+		EntityDescriptor ed = EntityDescriptor.of(clazz);
+
+		Set<I> unique = new LinkedHashSet<I>(ids);
+		Set<Serializable> found = new HashSet<>();
+		List<Serializable> missing = new ArrayList<>();
+
+		Cache cache = sf.getCache();
+
+		for (I id : unique) {
+			Serializable key = ed.toIdentifier(sf, id);
+			if (managed(clazz, key) != null || cache.containsEntity(clazz, key)) {
+				found.add(key);
+			} else {
+				missing.add(key);
+			}
+		}
+
+		if (!missing.isEmpty()) {
+
+			String hql = ed.getExistingHql(sf);
+
+			for (int offset = 0; offset < missing.size(); offset += inSize) {
+
+				List<Serializable> identifiers = session()
+					.createQuery(hql)
+					.setParameterList("ids", missing.subList(offset, Math.min(offset + inSize, missing.size())))
+					.setCacheable(false)
+					.list();
+
+				found.addAll(identifiers);
+			}
+		}
+
+		Set<I> existing = new LinkedHashSet<>();
+
+		for (I id : unique) {
+			if (found.contains(ed.toIdentifier(sf, id))) {
+				existing.add(id);
+			}
+		}
+
+		return existing;
 	}
 
 	@Override
@@ -509,13 +1231,11 @@ public abstract class PersistenceKeeperImpl implements Closeable, PersistenceKee
 		if (clazz == null) {
 			throw new IllegalArgumentException("Database entity class cannot be null");
 		}
-		if (!isEntity(clazz)) {
+		if (!EntityDescriptor.of(clazz).isEntity()) {
 			throw new IllegalArgumentException(String.format("Class %s is not a database entity", clazz.getName()));
 		}
 
-		List<T> entities = session()
-			.createQuery(String.format("from %s", clazz.getSimpleName()))
-			.setCacheable(false)
+		List<T> entities = cacheable(session().createQuery(EntityDescriptor.of(clazz).getListHql()), clazz)
 			.list();
 
 		for (T entity : entities) {
@@ -532,7 +1252,7 @@ public abstract class PersistenceKeeperImpl implements Closeable, PersistenceKee
 		if (clazz == null) {
 			throw new IllegalArgumentException("Database entity class cannot be null");
 		}
-		if (!isEntity(clazz)) {
+		if (!EntityDescriptor.of(clazz).isEntity()) {
 			throw new IllegalArgumentException(String.format("Class %s is not a database entity", clazz.getName()));
 		}
 		if (pgNum < 0) {
@@ -542,11 +1262,9 @@ public abstract class PersistenceKeeperImpl implements Closeable, PersistenceKee
 			throw new IllegalArgumentException("Max records count must be positive");
 		}
 
-		List<T> entities = session()
-			.createQuery(String.format("from %s", clazz.getSimpleName()))
+		List<T> entities = cacheable(session().createQuery(EntityDescriptor.of(clazz).getListHql()), clazz)
 			.setFirstResult(pgNum * pgSize)
 			.setMaxResults(pgSize)
-			.setCacheable(false)
 			.list();
 
 		for (T entity : entities) {
@@ -557,161 +1275,696 @@ public abstract class PersistenceKeeperImpl implements Closeable, PersistenceKee
 	}
 
 	@Override
-	public <T extends Identity<?>> ScrollableResultsIterator<T> cursor(Class<T> clazz) {
-
-		Session session = session();
-		ScrollableResults scroll = session
-			.createQuery(String.format("from %s", clazz.getSimpleName()))
-			.setReadOnly(true)
-			.setFetchSize(Integer.MIN_VALUE)
-			.scroll(ScrollMode.FORWARD_ONLY);
-
-		return new ScrollableResultsIterator<>(scroll, session);
-	}
-
-	@Override
-	public <T extends Identity<?>> T persist(T stateless) {
-		return store(stateless, CommitType.PERSIST);
-	}
-
-	@Override
-	public <T extends Identity<?>> T merge(T entity) {
-		return store(entity, CommitType.MERGE);
+	public <T> List<Map<String, Object>> view(Class<T> clazz, String... properties) {
+		return view(clazz, -1, 0, properties, false);
 	}
 
 	@Override
-	public <T extends Identity<?>> T save(T entity) {
-		return store(entity, CommitType.SAVE);
-	}
+	public <T> List<Map<String, Object>> view(Class<T> clazz, int pgNum, int pgSize, String... properties) {
 
-	@Override
-	public <T extends Identity<?>> T saveOrUpdate(T entity) {
-		return store(entity, CommitType.SAVE_OR_UPDATE);
-	}
+		if (pgNum < 0) {
+			throw new IllegalArgumentException("Offset cannot be negative");
+		}
+		if (pgSize <= 0) {
+			throw new IllegalArgumentException("Max records count must be positive");
+		}
 
-	@Override
-	public <T extends Identity<?>> T update(T entity) {
-		return store(entity, CommitType.UPDATE);
+		return view(clazz, pgNum, pgSize, properties, true);
 	}
 
-	@SuppressWarnings("unchecked")
-	private <T extends Identity<?>> T store(T entity, CommitType type) {
+	private <T> List<Map<String, Object>> view(Class<T> clazz, int pgNum, int pgSize, String[] properties, boolean paged) {
 
-		if (entity == null) {
-			throw new IllegalArgumentException("Persistent object to be updated cannot be null");
+		if (clazz == null) {
+			throw new IllegalArgumentException("Database entity class cannot be null");
 		}
-		if (type == null) {
-			throw new IllegalArgumentException("Commit type cannot be null");
+		if (!EntityDescriptor.of(clazz).isEntity()) {
+			throw new IllegalArgumentException(String.format("Class %s is not a database entity", clazz.getName()));
 		}
 
-		Class<?> clazz = entity.getClass();
+		SessionFactory sf = getSessionFactory();
+		EntityDescriptor ed = EntityDescriptor.of(clazz);
 
-		if (!isEntity(clazz)) {
-			throw new IllegalArgumentException(String.format("Class %s is not a database entity", clazz.getName()));
-		}
+		List<String> names = properties == null || properties.length == 0
+			? ed.getViewProperties(sf)
+			: Arrays.asList(properties);
 
-		switch (type) {
-			case UPDATE:
-			case MERGE:
-				if (entity.getId() == null) {
-					throw new IllegalStateException("Persistent identity to be updated/merged must have ID set");
+		String idn = ed.getIdentifierName(sf);
+		ClassMetadata cm = sf.getClassMetadata(clazz);
+
+		StringBuilder hql = new StringBuilder("select ");
+
+		for (int i = 0; i < names.size(); i++) {
+			String name = names.get(i);
+			if (!idn.equals(name)) {
+				if (!ed.getPropertyNames(sf).contains(name)) {
+					throw new IllegalArgumentException(String.format("Class %s has no property %s", clazz.getName(), name));
 				}
-				break;
-			case PERSIST:
-				if (entity.getId() != null) {
-					throw new IllegalStateException("Stateless identity to be persist must not have ID set");
+				if (cm.getPropertyType(name).isAssociationType()) {
+					throw new IllegalArgumentException(String.format("Property %s of class %s is an association", name, clazz.getName()));
 				}
-				break;
-			case SAVE:
-			case SAVE_OR_UPDATE:
-				break;
+			}
+			hql.append(i == 0 ? "" : ", ").append("e.").append(name);
 		}
 
-		// hooks
-
-		if (type == CommitType.PERSIST || type == CommitType.SAVE) {
-			PersistenceHooks.hook(entity, PrePersist.class);
-		} else {
-			PersistenceHooks.hook(entity, PreUpdate.class);
-		}
+		hql.append(" from ").append(ed.getName()).append(" e");
 
-		// bean validation
+		Query query = cacheable(session().createQuery(hql.toString()), clazz);
 
-		validate(entity);
+		if (paged) {
+			query
+				.setFirstResult(pgNum * pgSize)
+				.setMaxResults(pgSize);
+		}
 
-		Session s = session();
-		Transaction t = s.beginTransaction();
-		HibernateException he = null;
+		List<?> rows = query.list();
+		List<Map<String, Object>> views = new ArrayList<>(rows.size());
 
-		try {
-			switch (type) {
-				case UPDATE:
-					s.update(entity);
-					break;
-				case MERGE:
-					entity = (T) s.merge(entity);
-					break;
-				case PERSIST:
-					s.persist(entity);
-					break;
-				case SAVE:
-					s.save(entity);
-					break;
-				case SAVE_OR_UPDATE:
-					s.saveOrUpdate(entity);
-					break;
-				default:
-					throw new RuntimeException("Not supported, yet");
-			}
+		for (Object row : rows) {
 
-			t.commit();
+			Map<String, Object> view = new LinkedHashMap<>();
 
-		} catch (HibernateException e) {
-			throw he = e;
-		} finally {
-			if (he != null) {
-				try {
-					t.rollback();
-				} catch (Exception e) {
-					LOG.error("Cannot rollback", e);
+			if (names.size() == 1) {
+				view.put(names.get(0), row);
+			} else {
+				Object[] values = (Object[]) row;
+				for (int i = 0; i < values.length; i++) {
+					view.put(names.get(i), values[i]);
 				}
 			}
-		}
 
-		if (type == CommitType.PERSIST) {
-			PersistenceHooks.hook(entity, PostPersist.class);
-		} else {
-			PersistenceHooks.hook(entity, PostUpdate.class);
+			views.add(view);
 		}
 
-		return entity;
+		return views;
 	}
 
 	@Override
-	public <T extends Identity<?>> Collection<T> update(Collection<T> entities) {
-		return store(entities, CommitType.UPDATE);
+	public <T extends Identity<?>> Page<T> listAfter(Class<T> clazz, Serializable lastId, int pgSize) {
+		return listAfter(clazz, null, null, lastId, pgSize);
 	}
 
 	@Override
-	public <T extends Identity<?>> Collection<T> merge(Collection<T> entities) {
-		return store(entities, CommitType.MERGE);
-	}
-
-	private <T extends Identity<?>> Collection<T> store(Collection<T> entities, CommitType type) {
+	@SuppressWarnings("unchecked")
+	public <T extends Identity<?>> Page<T> listAfter(Class<T> clazz, String property, Object lastValue, Serializable lastId, int pgSize) {
 
-		if (entities.isEmpty()) {
-			return entities;
+		if (clazz == null) {
+			throw new IllegalArgumentException("Database entity class cannot be null");
+		}
+		if (!EntityDescriptor.of(clazz).isEntity()) {
+			throw new IllegalArgumentException(String.format("Class %s is not a database entity", clazz.getName()));
+		}
+		if (pgSize <= 0) {
+			throw new IllegalArgumentException("Max records count must be positive");
 		}
 
-		Class<?> clazz = null;
-		Session s = null;
+		SessionFactory sf = getSessionFactory();
+		EntityDescriptor ed = EntityDescriptor.of(clazz);
 
-		for (T entity : entities) {
+		if (property != null) {
+			if (!ed.getPropertyNames(sf).contains(property)) {
+				throw new IllegalArgumentException(String.format("Class %s has no property %s", clazz.getName(), property));
+			}
+			if (lastId != null && lastValue == null) {
+				throw new IllegalArgumentException("Last value cannot be null when last ID is set");
+			}
+		}
 
-			// TODO: move to mapping
+		String idn = ed.getIdentifierName(sf);
 
-			if (!isEntity(clazz = entity.getClass())) {
-				throw new IllegalArgumentException(String.format("Class %s is not a database entity", clazz.getName()));
+		StringBuilder hql = new StringBuilder(String.format("from %s e", ed.getName()));
+
+		if (lastId != null) {
+			if (property == null) {
+				hql.append(String.format(" where e.%s > :id", idn));
+			} else {
+				hql.append(String.format(" where e.%1$s > :value or (e.%1$s = :value and e.%2$s > :id)", property, idn));
+			}
+		}
+
+		if (property == null) {
+			hql.append(String.format(" order by e.%s", idn));
+		} else {
+			hql.append(String.format(" order by e.%s, e.%s", property, idn));
+		}
+
+		Query query = cacheable(session().createQuery(hql.toString()), clazz)
+			.setMaxResults(pgSize + 1);
+
+		// continuation token can come as a string (e.g. from query parameter) or as a number of
+		// different type, while parameters are bound with the mapped types
+
+		if (lastId != null) {
+			query.setParameter("id", ed.toIdentifier(sf, lastId));
+			if (property != null) {
+				query.setParameter("value", ed.toPropertyValue(sf, property, lastValue));
+			}
+		}
+
+		List<T> entities = query.list();
+
+		boolean more = entities.size() > pgSize;
+		if (more) {
+			entities = new ArrayList<>(entities.subList(0, pgSize));
+		}
+
+		for (T entity : entities) {
+			PersistenceHooks.hook(entity, PostLoad.class);
+		}
+
+		if (entities.isEmpty()) {
+			return new Page<>(entities, null, null, false);
+		}
+
+		T last = entities.get(entities.size() - 1);
+		Object value = property == null ? null : sf.getClassMetadata(clazz).getPropertyValue(last, property, EntityMode.POJO);
+
+		String nextToken = ed.toIdentifierToken(sf, last.getId());
+		String valueToken = property == null ? null : ed.toPropertyToken(sf, property, value);
+
+		return new Page<>(entities, last.getId(), value, more, nextToken, valueToken);
+	}
+
+	@Override
+	public <T extends Identity<?>> ScrollableResultsIterator<T> cursor(Class<T> clazz) {
+
+		Session session = session();
+		ScrollableResults scroll = session
+			.createQuery(EntityDescriptor.of(clazz).getListHql())
+			.setReadOnly(true)
+			.setFetchSize(Integer.MIN_VALUE)
+			.scroll(ScrollMode.FORWARD_ONLY);
+
+		return new ScrollableResultsIterator<>(scroll, session);
+	}
+
+	@Override
+	public <T extends Identity<?>> ScrollableResultsIterator<T> stream(Class<T> clazz) {
+
+		if (clazz == null) {
+			throw new IllegalArgumentException("Database entity class cannot be null");
+		}
+		if (!EntityDescriptor.of(clazz).isEntity()) {
+			throw new IllegalArgumentException(String.format("Class %s is not a database entity", clazz.getName()));
+		}
+
+		StatelessSession ss = getSessionFactory().openStatelessSession();
+		HibernateException he = null;
+
+		try {
+
+			ScrollableResults scroll = ss
+				.createQuery(EntityDescriptor.of(clazz).getListHql())
+				.setReadOnly(true)
+				.setFetchSize(Integer.MIN_VALUE)
+				.scroll(ScrollMode.FORWARD_ONLY);
+
+			return new ScrollableResultsIterator<>(scroll, ss);
+
+		} catch (HibernateException e) {
+			throw he = e;
+		} finally {
+			if (he != null) {
+				ss.close();
+			}
+		}
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T extends Identity<?>> long scan(Class<T> clazz, int partitions, final ScanConsumer<? super T> consumer, boolean ordered) {
+
+		if (clazz == null) {
+			throw new IllegalArgumentException("Database entity class cannot be null");
+		}
+		if (!EntityDescriptor.of(clazz).isEntity()) {
+			throw new IllegalArgumentException(String.format("Class %s is not a database entity", clazz.getName()));
+		}
+		if (partitions <= 0) {
+			throw new IllegalArgumentException("Number of partitions must be positive");
+		}
+		if (consumer == null) {
+			throw new IllegalArgumentException("Scan consumer cannot be null");
+		}
+
+		final SessionFactory sf = getSessionFactory();
+		final EntityDescriptor ed = EntityDescriptor.of(clazz);
+		final Class<?> type = sf.getClassMetadata(clazz).getIdentifierType().getReturnedClass();
+
+		if (type != Long.class && type != Integer.class && type != long.class && type != int.class) {
+			throw new IllegalArgumentException(String.format("Class %s has no integral identifier and cannot be scanned", clazz.getName()));
+		}
+
+		Object[] bounds;
+
+		StatelessSession ss = sf.openStatelessSession();
+		try {
+			bounds = (Object[]) ss
+				.createQuery(ed.getBoundsHql(sf))
+				.uniqueResult();
+		} finally {
+			ss.close();
+		}
+
+		if (bounds == null || bounds[0] == null) {
+			return 0;
+		}
+
+		long min = ((Number) bounds[0]).longValue();
+		long max = ((Number) bounds[1]).longValue();
+
+		// every partition holds its own thread and connection, so number of partitions is capped
+		// at parallelism; partition size is rounded up and number of partitions recomputed, so
+		// there are no empty partitions at the end of range
+
+		int p = Math.min(partitions, parallelism);
+		long span = max - min + 1;
+		long step = (span + p - 1) / p;
+		int n = (int) ((span + step - 1) / step);
+
+		LOG.debug("Scanning {} IDs from {} to {} in {} partitions", clazz, min, max, n);
+
+		final AtomicLong count = new AtomicLong();
+		final AtomicBoolean cancelled = new AtomicBoolean();
+
+		List<BlockingQueue<Object>> queues = new ArrayList<>();
+		List<Future<?>> futures = new ArrayList<>();
+
+		ExecutorService executor = executor(n, "keeper-scan");
+		Throwable failure = null;
+		boolean interrupted = false;
+
+		try {
+
+			for (int i = 0; i < n; i++) {
+
+				final Serializable lo = identifier(min + i * step, type);
+				final Serializable hi = identifier(Math.min(max, min + (i + 1) * step - 1), type);
+				final BlockingQueue<Object> queue = ordered ? new ArrayBlockingQueue<Object>(batchSize) : null;
+
+				queues.add(queue);
+				futures.add(executor.submit(new Callable<Void>() {
+
+					@Override
+					public Void call() throws Exception {
+						scan(sf, ed, lo, hi, consumer, queue, count, cancelled);
+						return null;
+					}
+				}));
+			}
+
+			// in ordered mode partitions are drained one after another in the caller thread, the
+			// remaining partitions are blocked on their bounded queues in the meantime
+
+			if (ordered) {
+				for (int i = 0; i < n; i++) {
+					BlockingQueue<Object> queue = queues.get(i);
+					for (Object o; (o = queue.take()) != END;) {
+						consumer.consume((T) o);
+					}
+					futures.get(i).get();
+				}
+			}
+
+		} catch (ExecutionException e) {
+			failure = e.getCause();
+		} catch (InterruptedException e) {
+			failure = e;
+			interrupted = true;
+		} catch (RuntimeException | Error e) {
+			failure = e;
+		} finally {
+			executor.shutdown();
+		}
+
+		if (failure != null) {
+			cancelled.set(true);
+			for (BlockingQueue<Object> queue : queues) {
+				if (queue != null) {
+					queue.clear();
+				}
+			}
+		}
+
+		// wait for all partitions to stop before returning or rethrowing, in unordered mode this
+		// is also where partition failures are collected
+
+		for (Future<?> future : futures) {
+			for (;;) {
+				try {
+					future.get();
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+					cancelled.set(true);
+					if (failure == null) {
+						failure = e;
+					}
+				} catch (ExecutionException e) {
+					if (failure == null) {
+						failure = e.getCause();
+					}
+					break;
+				}
+			}
+		}
+
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+
+		if (failure instanceof RuntimeException) {
+			throw (RuntimeException) failure;
+		}
+		if (failure instanceof Error) {
+			throw (Error) failure;
+		}
+		if (failure != null) {
+			throw new RuntimeException(failure);
+		}
+
+		return count.get();
+	}
+
+	/**
+	 * Scan single partition of IDs in a new stateless session opened from the given session
+	 * factory. Entities are passed to the consumer, or, if queue is given, put into the queue
+	 * followed by the {@link #END} marker. Scan stops as soon as it's cancelled, and in unordered
+	 * mode (no queue) failed partition cancels the other ones.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> void scan(SessionFactory sf, EntityDescriptor ed, Serializable lo, Serializable hi, ScanConsumer<? super T> consumer, BlockingQueue<Object> queue, AtomicLong count, AtomicBoolean cancelled) throws InterruptedException {
+
+		StatelessSession ss = sf.openStatelessSession();
+		ScrollableResults sr = null;
+
+		try {
+
+			sr = ss
+				.createQuery(ed.getRangeHql(sf))
+				.setParameter("lo", lo)
+				.setParameter("hi", hi)
+				.setReadOnly(true)
+				.setFetchSize(fetchSize(sf))
+				.scroll(ScrollMode.FORWARD_ONLY);
+
+			while (!cancelled.get() && sr.next()) {
+				if (queue == null) {
+					consumer.consume((T) sr.get(0));
+				} else if (!offer(queue, sr.get(0), cancelled)) {
+					break;
+				}
+				count.incrementAndGet();
+			}
+
+		} catch (RuntimeException | Error e) {
+			if (queue == null) {
+				cancelled.set(true);
+			}
+			throw e;
+		} finally {
+			try {
+				if (sr != null) {
+					sr.close();
+				}
+				ss.close();
+			} finally {
+				if (queue != null) {
+					offer(queue, END, cancelled);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Put element into the scan queue, waiting for the free space unless scan is cancelled (in
+	 * which case nobody drains the queue anymore).
+	 *
+	 * @param queue the queue
+	 * @param o the element
+	 * @param cancelled the scan cancellation flag
+	 * @return True if element has been put, false if scan has been cancelled
+	 * @throws InterruptedException when thread has been interrupted
+	 */
+	private static boolean offer(BlockingQueue<Object> queue, Object o, AtomicBoolean cancelled) throws InterruptedException {
+		while (!queue.offer(o, 100, TimeUnit.MILLISECONDS)) {
+			if (cancelled.get()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param sf the session factory
+	 * @return Fetch size which makes JDBC driver stream rows instead of reading them all at once
+	 */
+	private static int fetchSize(SessionFactory sf) {
+		if (((SessionFactoryImplementor) sf).getDialect() instanceof MySQLDialect) {
+			return Integer.MIN_VALUE;
+		}
+		return batchSize;
+	}
+
+	private static Serializable identifier(long id, Class<?> type) {
+		if (type == Integer.class || type == int.class) {
+			return (int) id;
+		}
+		return id;
+	}
+
+	@Override
+	public <T extends Identity<?>> T persist(T stateless) {
+		return store(stateless, CommitType.PERSIST);
+	}
+
+	@Override
+	public <T extends Identity<?>> T merge(T entity) {
+		return store(entity, CommitType.MERGE);
+	}
+
+	@Override
+	public <T extends Identity<?>> T save(T entity) {
+		return store(entity, CommitType.SAVE);
+	}
+
+	@Override
+	public <T extends Identity<?>> T saveOrUpdate(T entity) {
+		return store(entity, CommitType.SAVE_OR_UPDATE);
+	}
+
+	@Override
+	public <T extends Identity<?>> T update(T entity) {
+		return store(entity, CommitType.UPDATE);
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T extends Identity<?>> T store(T entity, CommitType type) {
+
+		writable();
+
+		if (entity == null) {
+			throw new IllegalArgumentException("Persistent object to be updated cannot be null");
+		}
+		if (type == null) {
+			throw new IllegalArgumentException("Commit type cannot be null");
+		}
+
+		Class<?> clazz = entity.getClass();
+
+		if (!EntityDescriptor.of(clazz).isEntity()) {
+			throw new IllegalArgumentException(String.format("Class %s is not a database entity", clazz.getName()));
+		}
+
+		switch (type) {
+			case UPDATE:
+			case MERGE:
+				if (entity.getId() == null) {
+					throw new IllegalStateException("Persistent identity to be updated/merged must have ID set");
+				}
+				break;
+			case PERSIST:
+				if (entity.getId() != null) {
+					throw new IllegalStateException("Stateless identity to be persist must not have ID set");
+				}
+				break;
+			case SAVE:
+			case SAVE_OR_UPDATE:
+				break;
+		}
+
+		// hooks
+
+		if (type == CommitType.PERSIST || type == CommitType.SAVE) {
+			PersistenceHooks.hook(entity, PrePersist.class);
+		} else {
+			PersistenceHooks.hook(entity, PreUpdate.class);
+		}
+
+		// bean validation
+
+		validate(entity);
+
+		Session s = session();
+		Transaction t = beginTransaction(s);
+		HibernateException he = null;
+
+		try {
+			switch (type) {
+				case UPDATE:
+					s.update(entity);
+					break;
+				case MERGE:
+					entity = (T) s.merge(entity);
+					break;
+				case PERSIST:
+					s.persist(entity);
+					break;
+				case SAVE:
+					s.save(entity);
+					break;
+				case SAVE_OR_UPDATE:
+					s.saveOrUpdate(entity);
+					break;
+				default:
+					throw new RuntimeException("Not supported, yet");
+			}
+
+			commitTransaction(t);
+			invalidate(t, clazz);
+
+		} catch (HibernateException e) {
+			throw he = e;
+		} finally {
+			if (he != null) {
+				rollbackTransaction(t);
+			}
+		}
+
+		if (type == CommitType.PERSIST) {
+			PersistenceHooks.hook(entity, PostPersist.class);
+		} else {
+			PersistenceHooks.hook(entity, PostUpdate.class);
+		}
+
+		return entity;
+	}
+
+	@Override
+	public <T extends Identity<?>> Collection<T> update(Collection<T> entities) {
+		return store(entities, CommitType.UPDATE);
+	}
+
+	@Override
+	public <T extends Identity<?>> Collection<T> merge(Collection<T> entities) {
+		return store(entities, CommitType.MERGE);
+	}
+
+	private <T extends Identity<?>> Collection<T> store(Collection<T> entities, CommitType type) {
+
+		writable();
+
+		if (entities.isEmpty()) {
+			return entities;
+		}
+
+		prepare(entities, type);
+
+		Session s = null;
+
+		if (entities.size() >= batchSize && unit == null) {
+			s = FACTORIES.get(getSessionFactoryPath()).openSession();
+		} else {
+			s = session();
+		}
+
+		Transaction t = beginTransaction(s);
+		HibernateException he = null;
+
+		try {
+
+			int i = 0;
+			for (T entity : entities) {
+
+				switch (type) {
+					case PERSIST:
+						s.persist(entity);
+						break;
+					case SAVE:
+						s.save(entity);
+						break;
+					case UPDATE:
+						s.update(entity);
+						break;
+					case MERGE:
+						s.merge(entity);
+						break;
+					case SAVE_OR_UPDATE:
+						s.saveOrUpdate(entity);
+						break;
+				}
+
+				// batch mode
+
+				if (s != session()) {
+					if (i++ > 0 && i % batchSize == 0) {
+						s.flush();
+						s.clear();
+					}
+				}
+			}
+
+			commitTransaction(t);
+			invalidate(t, entities);
+
+		} catch (HibernateException e) {
+			throw he = e;
+		} finally {
+
+			if (he != null) {
+				rollbackTransaction(t);
+			}
+
+			// in case of batch mode
+
+			if (s != session()) {
+
+				if (he == null) {
+					s.flush();
+				}
+
+				s.clear();
+				s.close();
+			}
+		}
+
+		for (T entity : entities) {
+			if (type == CommitType.PERSIST) {
+				PersistenceHooks.hook(entity, PostPersist.class);
+			} else {
+				PersistenceHooks.hook(entity, PostUpdate.class);
+			}
+		}
+
+		return entities;
+	}
+
+	/**
+	 * Verify entities, invoke pre-commit persistence hooks and validate entities before they are
+	 * stored in the database.
+	 *
+	 * @param entities the entities to be stored
+	 * @param type the commit type
+	 */
+	private <T extends Identity<?>> void prepare(Collection<T> entities, CommitType type) {
+
+		Class<?> clazz = null;
+
+		for (T entity : entities) {
+
+			// TODO: move to mapping
+
+			if (!EntityDescriptor.of(clazz = entity.getClass()).isEntity()) {
+				throw new IllegalArgumentException(String.format("Class %s is not a database entity", clazz.getName()));
 			}
 
 			// for update commits we have to verify if ID is set
@@ -748,13 +2001,197 @@ public abstract class PersistenceKeeperImpl implements Closeable, PersistenceKee
 
 			validate(entity);
 		}
+	}
+
+	@Override
+	public <T extends Identity<?>> List<BatchResult> persistBatch(Collection<T> entities) {
+		return persistBatch(entities, batchSize);
+	}
+
+	@Override
+	public <T extends Identity<?>> List<BatchResult> persistBatch(Collection<T> entities, int chunkSize) {
+
+		writable();
+		standalone();
+
+		if (chunkSize <= 0) {
+			throw new IllegalArgumentException("Chunk size must be positive");
+		}
 
-		if (entities.size() >= batchSize) {
-			s = FACTORIES.get(getSessionFactoryPath()).openSession();
-		} else {
-			s = session();
+		List<BatchResult> results = new ArrayList<>();
+
+		if (entities.isEmpty()) {
+			return results;
+		}
+
+		SessionFactoryImplementor sfi = (SessionFactoryImplementor) getSessionFactory();
+		Map<Class<?>, List<T>> groups = group(entities);
+
+		for (Class<?> clazz : groups.keySet()) {
+			if (BatchInsertWork.hasOwnedCollections(sfi.getEntityPersister(clazz.getName()))) {
+				throw new UnsupportedOperationException(String.format("Batch persist is not supported for %s since it owns collections", clazz.getName()));
+			}
+		}
+
+		prepare(entities, CommitType.PERSIST);
+
+		StatelessSession ss = sfi.openStatelessSession();
+		Transaction t = ss.beginTransaction();
+		HibernateException he = null;
+
+		try {
+
+			for (Entry<Class<?>, List<T>> group : groups.entrySet()) {
+
+				Class<?> clazz = group.getKey();
+				EntityPersister ep = sfi.getEntityPersister(clazz.getName());
+
+				if (BatchInsertWork.isSupported(ep)) {
+
+					BatchInsertWork<T> work = new BatchInsertWork<>((AbstractEntityPersister) ep, (SessionImplementor) ss, group.getValue(), chunkSize);
+
+					try {
+						work.execute(ss.connection());
+					} catch (SQLException e) {
+						throw sfi.getSQLExceptionConverter().convert(e, "Cannot execute batch insert for " + clazz.getName(), null);
+					}
+
+					results.addAll(work.getResults());
+
+				} else {
+
+					LOG.debug("Entity {} cannot be written with JDBC batch, fallback to stateless inserts", clazz);
+
+					List<T> list = group.getValue();
+					int chunk = 0;
+
+					for (int offset = 0; offset < list.size(); offset += chunkSize) {
+
+						List<T> part = list.subList(offset, Math.min(offset + chunkSize, list.size()));
+						long start = System.currentTimeMillis();
+
+						for (T entity : part) {
+							ss.insert(entity);
+						}
+
+						results.add(new BatchResult(clazz, chunk++, part.size(), part.size(), System.currentTimeMillis() - start));
+					}
+				}
+			}
+
+			t.commit();
+			invalidate(entities);
+
+		} catch (HibernateException e) {
+			throw he = e;
+		} finally {
+			if (he != null) {
+				try {
+					t.rollback();
+				} catch (Exception e) {
+					LOG.error("Cannot rollback", e);
+				}
+			}
+			ss.close();
+		}
+
+		for (T entity : entities) {
+			PersistenceHooks.hook(entity, PostPersist.class);
+		}
+
+		return results;
+	}
+
+	@Override
+	public <T extends Identity<?>> PartitionedResult<T> store(Collection<T> entities, final CommitType type, int partitions) {
+
+		writable();
+		standalone();
+
+		if (type == null) {
+			throw new IllegalArgumentException("Commit type cannot be null");
+		}
+		if (partitions <= 0) {
+			throw new IllegalArgumentException("Number of partitions must be positive");
+		}
+
+		List<T> list = new ArrayList<>(entities);
+		List<PartitionedResult.Partition<T>> results = new ArrayList<>();
+
+		if (list.isEmpty()) {
+			return new PartitionedResult<>(results);
+		}
+
+		int n = Math.min(Math.min(partitions, parallelism), list.size());
+		int size = (list.size() + n - 1) / n;
+
+		final SessionFactory factory = getSessionFactory();
+
+		List<List<T>> parts = new ArrayList<>();
+		List<Future<?>> futures = new ArrayList<>();
+
+		ExecutorService executor = executor();
+
+		for (int offset = 0; offset < list.size(); offset += size) {
+
+			final List<T> part = list.subList(offset, Math.min(offset + size, list.size()));
+
+			parts.add(part);
+			futures.add(executor.submit(new Callable<Void>() {
+
+				@Override
+				public Void call() throws Exception {
+					store(factory, part, type);
+					return null;
+				}
+			}));
 		}
 
+		// partitions cannot be stopped once their transactions are running, so always wait for all
+		// of them to report the real outcome, even when caller is interrupted
+
+		boolean interrupted = false;
+
+		for (int i = 0; i < parts.size(); i++) {
+
+			Throwable error = null;
+
+			for (;;) {
+				try {
+					futures.get(i).get();
+					break;
+				} catch (ExecutionException e) {
+					LOG.error("Partition {} of {} has been rolled back", i, parts.size(), e.getCause());
+					error = e.getCause();
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+
+			results.add(new PartitionedResult.Partition<>(i, parts.get(i), error));
+		}
+
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+
+		return new PartitionedResult<>(results);
+	}
+
+	/**
+	 * Store single partition of entities in a new session and transaction opened from the given
+	 * session factory.
+	 *
+	 * @param factory the session factory
+	 * @param entities the entities to be stored
+	 * @param type the commit type
+	 */
+	private <T extends Identity<?>> void store(SessionFactory factory, List<T> entities, CommitType type) {
+
+		prepare(entities, type);
+
+		Session s = factory.openSession();
 		Transaction t = s.beginTransaction();
 		HibernateException he = null;
 
@@ -781,52 +2218,190 @@ public abstract class PersistenceKeeperImpl implements Closeable, PersistenceKee
 						break;
 				}
 
-				// batch mode
+				if (++i % batchSize == 0) {
+					s.flush();
+					s.clear();
+				}
+			}
 
-				if (s != session()) {
-					if (i++ > 0 && i % batchSize == 0) {
-						s.flush();
-						s.clear();
-					}
+			t.commit();
+			invalidate(entities);
+
+		} catch (HibernateException e) {
+			throw he = e;
+		} finally {
+			if (he != null) {
+				try {
+					t.rollback();
+				} catch (Exception e) {
+					LOG.error("Cannot rollback", e);
+				}
+			}
+			s.close();
+		}
+
+		for (T entity : entities) {
+			if (type == CommitType.PERSIST) {
+				PersistenceHooks.hook(entity, PostPersist.class);
+			} else {
+				PersistenceHooks.hook(entity, PostUpdate.class);
+			}
+		}
+	}
+
+	/**
+	 * Get executor shared by parallel keeper operations. It has a fixed number of daemon threads
+	 * equal to the configured parallelism, so the number of threads does not depend on the number
+	 * of partitions requested by callers.
+	 *
+	 * @return Shared executor service
+	 */
+	private static synchronized ExecutorService executor() {
+		if (pool == null) {
+			pool = executor(parallelism, "keeper-worker");
+		}
+		return pool;
+	}
+
+	/**
+	 * Create fixed size executor with daemon threads to be used by parallel keeper operations.
+	 *
+	 * @param threads the number of threads
+	 * @param name the threads name prefix
+	 * @return New executor service
+	 */
+	private static ExecutorService executor(int threads, final String name) {
+		return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+
+			private final AtomicInteger number = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, name + "-" + number.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	@Override
+	public <T extends Identity<?>> List<BatchResult> upsert(Collection<T> entities) {
+		return upsert(entities, batchSize);
+	}
+
+	@Override
+	public <T extends Identity<?>> List<BatchResult> upsert(Collection<T> entities, int chunkSize) {
+
+		writable();
+		standalone();
+
+		if (chunkSize <= 0) {
+			throw new IllegalArgumentException("Chunk size must be positive");
+		}
+
+		List<BatchResult> results = new ArrayList<>();
+
+		if (entities.isEmpty()) {
+			return results;
+		}
+
+		SessionFactoryImplementor sfi = (SessionFactoryImplementor) getSessionFactory();
+		Dialect dialect = sfi.getDialect();
+
+		if (!BatchUpsertWork.isSupported(dialect)) {
+			throw new UnsupportedOperationException("Upsert is not supported for " + dialect.getClass().getName());
+		}
+
+		for (T entity : entities) {
+			if (entity.getId() == null) {
+				throw new IllegalStateException("Identity to be upserted must have ID set");
+			}
+		}
+
+		Map<Class<?>, List<T>> groups = group(entities);
+
+		for (Class<?> clazz : groups.keySet()) {
+			if (!BatchInsertWork.isSupported(sfi.getEntityPersister(clazz.getName()))) {
+				throw new UnsupportedOperationException("Upsert is not supported for " + clazz.getName());
+			}
+		}
+
+		prepare(entities, CommitType.SAVE_OR_UPDATE);
+
+		StatelessSession ss = sfi.openStatelessSession();
+		Transaction t = ss.beginTransaction();
+		RuntimeException re = null;
+
+		try {
+
+			for (Entry<Class<?>, List<T>> group : groups.entrySet()) {
+
+				Class<?> clazz = group.getKey();
+				EntityPersister ep = sfi.getEntityPersister(clazz.getName());
+
+				BatchUpsertWork<T> work = new BatchUpsertWork<>((AbstractEntityPersister) ep, (SessionImplementor) ss, group.getValue(), chunkSize, dialect);
+
+				try {
+					work.execute(ss.connection());
+				} catch (SQLException e) {
+					throw sfi.getSQLExceptionConverter().convert(e, "Cannot execute batch upsert for " + clazz.getName(), null);
 				}
+
+				results.addAll(work.getResults());
 			}
 
 			t.commit();
+			invalidate(entities);
 
-		} catch (HibernateException e) {
-			throw he = e;
+		} catch (RuntimeException e) {
+			throw re = e;
 		} finally {
-
-			if (he != null) {
+			if (re != null) {
 				try {
 					t.rollback();
 				} catch (Exception e) {
 					LOG.error("Cannot rollback", e);
 				}
 			}
+			ss.close();
+		}
 
-			// in case of batch mode
-
-			if (s != session()) {
+		// entities has been written directly, so instances from session and second level cache are
+		// stale now
 
-				if (he == null) {
-					s.flush();
-				}
+		Cache cache = getSessionFactory().getCache();
 
-				s.clear();
-				s.close();
+		for (T entity : entities) {
+			Object managed = managed(entity.getClass(), entity.getId());
+			if (managed != null) {
+				session().evict(managed);
 			}
+			cache.evictEntity(entity.getClass(), entity.getId());
+			PersistenceHooks.hook(entity, PostUpdate.class);
 		}
 
+		return results;
+	}
+
+	/**
+	 * Group entities by their classes, keeping the original order within every group.
+	 *
+	 * @param entities the entities to be grouped
+	 * @return Entities grouped by class
+	 */
+	private static <T> Map<Class<?>, List<T>> group(Collection<T> entities) {
+
+		Map<Class<?>, List<T>> groups = new LinkedHashMap<>();
+
 		for (T entity : entities) {
-			if (type == CommitType.PERSIST) {
-				PersistenceHooks.hook(entity, PostPersist.class);
-			} else {
-				PersistenceHooks.hook(entity, PostUpdate.class);
+			List<T> group = groups.get(entity.getClass());
+			if (group == null) {
+				groups.put(entity.getClass(), group = new ArrayList<T>());
 			}
+			group.add(entity);
 		}
 
-		return entities;
+		return groups;
 	}
 
 	@Override
@@ -842,31 +2417,21 @@ public abstract class PersistenceKeeperImpl implements Closeable, PersistenceKee
 
 		Class<?> clazz = dry.getClass();
 
-		if (!isEntity(clazz)) {
+		if (!EntityDescriptor.of(clazz).isEntity()) {
 			throw new IllegalArgumentException(String.format("Class %s is not a database entity", clazz.getName()));
 		}
 
 		Serializable id = ((Identity<?>) dry).getId();
 		T managed = (T) get(clazz, id);
 
-		for (Field f : clazz.getDeclaredFields()) {
-
-			if (!f.isAccessible()) {
-				f.setAccessible(true);
-			}
-
-			Annotation jp = f.getAnnotation(JsonProperty.class);
-			Annotation c = f.getAnnotation(Column.class);
-
-			if (jp != null && c != null) {
-				Object o = null;
-				try {
-					if ((o = f.get(dry)) != null) {
-						f.set(managed, o);
-					}
-				} catch (Exception e) {
-					throw new RuntimeException(e);
+		for (Field f : EntityDescriptor.of(clazz).getHydratableFields()) {
+			Object o = null;
+			try {
+				if ((o = f.get(dry)) != null) {
+					f.set(managed, o);
 				}
+			} catch (Exception e) {
+				throw new RuntimeException(e);
 			}
 		}
 
@@ -891,35 +2456,135 @@ public abstract class PersistenceKeeperImpl implements Closeable, PersistenceKee
 			throw new IllegalArgumentException("Dry entity must be an identity");
 		}
 
-		for (Field f : dry.getClass().getDeclaredFields()) {
-
-			if (!f.isAccessible()) {
-				f.setAccessible(true);
+		for (Field f : EntityDescriptor.of(dry.getClass()).getHydratableFields()) {
+			Object o = null;
+			try {
+				if ((o = f.get(dry)) != null) {
+					f.set(managed, o);
+				}
+			} catch (IllegalArgumentException e) {
+				throw new RuntimeException(e);
+			} catch (IllegalAccessException e) {
+				throw new RuntimeException(e);
 			}
+		}
+
+		return managed;
+	}
+
+	@Override
+	public <T extends Identity<?>> boolean patch(T dry) {
 
-			Annotation jp = f.getAnnotation(JsonProperty.class);
-			Annotation c = f.getAnnotation(Column.class);
+		writable();
 
-			if (jp != null && c != null) {
+		if (dry == null) {
+			throw new IllegalArgumentException("Dry entity to be patched must not be null");
+		}
+		if (dry.getId() == null) {
+			throw new IllegalStateException("Only persistent entities can be patched");
+		}
+
+		Class<?> clazz = dry.getClass();
+
+		if (!EntityDescriptor.of(clazz).isEntity()) {
+			throw new IllegalArgumentException(String.format("Class %s is not a database entity", clazz.getName()));
+		}
+
+		PersistenceHooks.hook(dry, PreUpdate.class);
+
+		SessionFactory sf = getSessionFactory();
+		EntityDescriptor ed = EntityDescriptor.of(clazz);
+		ClassMetadata cm = sf.getClassMetadata(clazz);
+		Set<String> properties = ed.getPropertyNames(sf);
+
+		// collect REST-visible columns which has been set in dry object
 
+		Map<String, Object> values = new LinkedHashMap<>();
+
+		for (Field f : ed.getHydratableFields()) {
+			if (properties.contains(f.getName())) {
 				Object o = null;
 				try {
 					if ((o = f.get(dry)) != null) {
-						f.set(managed, o);
+						values.put(f.getName(), o);
 					}
-				} catch (IllegalArgumentException e) {
-					throw new RuntimeException(e);
-				} catch (IllegalAccessException e) {
+				} catch (Exception e) {
 					throw new RuntimeException(e);
 				}
 			}
 		}
 
-		return managed;
+		if (values.isEmpty()) {
+			return false;
+		}
+
+		// validate only touched properties
+
+		Set<ConstraintViolation<Object>> violations = new HashSet<>();
+		for (String name : values.keySet()) {
+			violations.addAll(VALIDATOR.validateProperty((Object) dry, name));
+		}
+		if (!violations.isEmpty()) {
+			throw new EntityValidationException(dry, violations);
+		}
+
+		String idn = ed.getIdentifierName(sf);
+
+		StringBuilder hql = new StringBuilder(cm.isVersioned() ? "update versioned " : "update ")
+			.append(ed.getName())
+			.append(" e set ");
+
+		int i = 0;
+		for (String name : values.keySet()) {
+			hql.append(i == 0 ? "" : ", ").append(String.format("e.%s = :p%d", name, i++));
+		}
+
+		hql.append(String.format(" where e.%s = :id", idn));
+
+		Session s = session();
+		Query q = s
+			.createQuery(hql.toString())
+			.setParameter("id", dry.getId())
+			.setCacheable(false);
+
+		i = 0;
+		for (Entry<String, Object> value : values.entrySet()) {
+			q.setParameter("p" + i++, value.getValue(), cm.getPropertyType(value.getKey()));
+		}
+
+		HibernateException he = null;
+		Transaction t = beginTransaction(s);
+
+		int count = -1;
+		try {
+			count = q.executeUpdate();
+			commitTransaction(t);
+		} catch (HibernateException e) {
+			throw he = e;
+		} finally {
+			if (he != null) {
+				rollbackTransaction(t);
+			}
+		}
+
+		// managed instance (if any) is stale now
+
+		Object managed = managed(clazz, dry.getId());
+		if (managed != null) {
+			s.evict(managed);
+		}
+
+		getSessionFactory().getCache().evictEntity(clazz, dry.getId());
+
+		PersistenceHooks.hook(dry, PostUpdate.class);
+
+		return count > 0;
 	}
 
 	@Override
-	public <T extends Identity<?>> T delete(T entity) {
+	public <T extends Identity<?>> T delete(final T entity) {
+
+		writable();
 
 		if (entity == null) {
 			throw new IllegalArgumentException("Persistent object to be deleted cannot be null");
@@ -928,39 +2593,39 @@ public abstract class PersistenceKeeperImpl implements Closeable, PersistenceKee
 		PersistenceHooks.hook(entity, PreRemove.class);
 
 		Session s = session();
-		Transaction t = s.beginTransaction();
+		Transaction t = beginTransaction(s);
 		HibernateException he = null;
 
 		try {
 			s.delete(entity);
-			t.commit();
+			commitTransaction(t);
+			invalidate(t, entity.getClass());
 		} catch (HibernateException e) {
 			throw he = e;
 		} finally {
 			if (he != null) {
-				try {
-					t.rollback();
-				} catch (Exception e) {
-					LOG.error("Cannot rollback", e);
-				}
+				rollbackTransaction(t);
 			}
 		}
 
-		PersistenceHooks.hook(entity, PostRemove.class);
+		// within unit of work entity is deleted when the session is flushed on commit, so it
+		// cannot be detached before
 
-		// detached identities must have ID set to null - this is very helpful
-		// trick which bind entity with the state which can be resolved without
-		// using Hibernate (e.g. in upper presentation layers)
+		afterCommit(t, new Runnable() {
 
-		if (entity instanceof Identity) {
-			((Identity<?>) entity).setId(null);
-		}
+			@Override
+			public void run() {
+				removed(entity);
+			}
+		});
 
-		return evict(entity);
+		return entity;
 	}
 
 	@Override
-	public <T extends Identity<?>> Collection<T> delete(Collection<T> entities) {
+	public <T extends Identity<?>> Collection<T> delete(final Collection<T> entities) {
+
+		writable();
 
 		if (entities.isEmpty()) {
 			return entities;
@@ -971,46 +2636,62 @@ public abstract class PersistenceKeeperImpl implements Closeable, PersistenceKee
 		}
 
 		Session s = session();
-		Transaction t = s.beginTransaction();
+		Transaction t = beginTransaction(s);
 		HibernateException he = null;
 
 		try {
 			for (T entity : entities) {
 				s.delete(entity);
 			}
-			t.commit();
+			commitTransaction(t);
+			invalidate(t, entities);
 		} catch (HibernateException e) {
 			throw he = e;
 		} finally {
 			if (he != null) {
-				try {
-					t.rollback();
-				} catch (Exception e) {
-					LOG.error("Cannot rollback", e);
-				}
+				rollbackTransaction(t);
 			}
 		}
 
-		for (T entity : entities) {
-			PersistenceHooks.hook(entity, PostRemove.class);
-		}
+		// within unit of work entities are deleted when the session is flushed on commit, so they
+		// cannot be detached before
 
-		// detached identities must have ID set to null - this is very helpful
-		// trick which bind entity with the state which can be resolved without
-		// using Hibernate (e.g. in upper presentation layers)
+		afterCommit(t, new Runnable() {
 
-		for (T entity : entities) {
-			entity.setId(null);
-			evict(entity);
-		}
+			@Override
+			public void run() {
+				for (T entity : entities) {
+					removed(entity);
+				}
+			}
+		});
 
 		return entities;
 
 	}
 
+	/**
+	 * Invoke post-remove hooks on the deleted entity and detach it.
+	 *
+	 * @param entity the deleted entity
+	 */
+	private void removed(Identity<?> entity) {
+
+		PersistenceHooks.hook(entity, PostRemove.class);
+
+		// detached identities must have ID set to null - this is very helpful
+		// trick which bind entity with the state which can be resolved without
+		// using Hibernate (e.g. in upper presentation layers)
+
+		entity.setId(null);
+		evict(entity);
+	}
+
 	@Override
 	public <T extends Identity<?>> boolean delete(Class<T> clazz, Serializable id) {
 
+		writable();
+
 		if (clazz == null) {
 			throw new IllegalArgumentException("Entity class cannot be null");
 		}
@@ -1018,39 +2699,121 @@ public abstract class PersistenceKeeperImpl implements Closeable, PersistenceKee
 			throw new IllegalArgumentException("Entity ID cannot be null");
 		}
 
-		ClassMetadata cm = getSessionFactory().getClassMetadata(clazz);
-
-		String idn = cm.getIdentifierPropertyName();
-		String csn = clazz.getSimpleName();
-
 		Session s = session();
 		Query q = s
-			.createQuery(String.format("delete from %s e where e.%s = :id", csn, idn))
+			.createQuery(EntityDescriptor.of(clazz).getDeleteHql(getSessionFactory()))
 			.setSerializable("id", id)
 			.setCacheable(false);
 
 		HibernateException he = null;
-		Transaction t = s.beginTransaction();
+		Transaction t = beginTransaction(s);
 
 		int count = -1;
 		try {
 			count = q.executeUpdate();
-			t.commit();
+			commitTransaction(t);
+			invalidate(t, clazz);
 		} catch (HibernateException e) {
 			throw he = e;
 		} finally {
 			if (he != null) {
-				try {
-					t.rollback();
-				} catch (Exception e) {
-					LOG.error("Cannot rollback", e);
-				}
+				rollbackTransaction(t);
 			}
 		}
 
 		return count > 0;
 	}
 
+	@Override
+	public <T extends Identity<?>> int delete(Class<T> clazz, Collection<? extends Serializable> ids) {
+
+		writable();
+
+		if (clazz == null) {
+			throw new IllegalArgumentException("Entity class cannot be null");
+		}
+		if (ids == null) {
+			throw new IllegalArgumentException("Entity IDs cannot be null");
+		}
+		if (!EntityDescriptor.of(clazz).isEntity()) {
+			throw new IllegalArgumentException(String.format("Class %s is not a database entity", clazz.getName()));
+		}
+
+		SessionFactory sf = getSessionFactory();
+		EntityDescriptor ed = EntityDescriptor.of(clazz);
+
+		// IDs are bound against the mapped identifier type and evicted by entity key, so caller IDs
+		// have to be of the same type
+
+		Set<Serializable> unique = new LinkedHashSet<Serializable>();
+		for (Serializable id : ids) {
+			if (id == null) {
+				throw new IllegalArgumentException("Entity ID cannot be null");
+			}
+			unique.add(ed.toIdentifier(sf, id));
+		}
+
+		List<Serializable> list = new ArrayList<Serializable>(unique);
+		if (list.isEmpty()) {
+			return 0;
+		}
+
+		String hql = ed.getDeleteByIdsHql(sf);
+
+		Session s = session();
+		HibernateException he = null;
+		Transaction t = beginTransaction(s);
+
+		int count = 0;
+		try {
+			for (int offset = 0; offset < list.size(); offset += inSize) {
+				count += s
+					.createQuery(hql)
+					.setParameterList("ids", list.subList(offset, Math.min(offset + inSize, list.size())))
+					.setCacheable(false)
+					.executeUpdate();
+			}
+			commitTransaction(t);
+			invalidate(t, clazz);
+		} catch (HibernateException e) {
+			throw he = e;
+		} finally {
+			if (he != null) {
+				rollbackTransaction(t);
+			}
+		}
+
+		// bulk statements bypass persistence context, so removed entities have to be evicted from
+		// both session and second level cache manually
+
+		Cache cache = sf.getCache();
+
+		for (Serializable id : list) {
+			Object entity = managed(clazz, id);
+			if (entity != null) {
+				s.evict(entity);
+			}
+			cache.evictEntity(clazz, id);
+		}
+
+		return count;
+	}
+
+	/**
+	 * Get entity instance from the keeper session (first level cache) without hitting the database.
+	 *
+	 * @param clazz the entity class
+	 * @param id the entity ID
+	 * @return Managed entity or null if entity is not associated with the keeper session
+	 */
+	private Object managed(Class<?> clazz, Serializable id) {
+
+		SessionImplementor si = (SessionImplementor) session();
+		EntityPersister ep = si.getFactory().getEntityPersister(clazz.getName());
+
+		return si.getPersistenceContext().getEntity(new EntityKey(id, ep, EntityMode.POJO));
+	}
+
 	@Override
 	public <T extends Identity<?>> T evict(T entity) {
 		session().evict(entity);
@@ -1112,6 +2875,21 @@ public abstract class PersistenceKeeperImpl implements Closeable, PersistenceKee
 			batchSize = Integer.parseInt(batchSizeStr);
 		}
 
+		String inSizeStr = configuration.getProperty("com.github.sarxos.hbrs.db.in_size");
+		if (inSizeStr != null && !inSizeStr.isEmpty()) {
+			inSize = Integer.parseInt(inSizeStr);
+		}
+
+		String countTtlStr = configuration.getProperty("com.github.sarxos.hbrs.db.count_ttl");
+		if (countTtlStr != null && !countTtlStr.isEmpty()) {
+			countTtl = Long.parseLong(countTtlStr);
+		}
+
+		String parallelismStr = configuration.getProperty("com.github.sarxos.hbrs.db.parallelism");
+		if (parallelismStr != null && !parallelismStr.isEmpty()) {
+			parallelism = Math.max(1, Integer.parseInt(parallelismStr));
+		}
+
 		return classes.toArray(new Class<?>[classes.size()]);
 	}
 
@@ -1122,43 +2900,137 @@ public abstract class PersistenceKeeperImpl implements Closeable, PersistenceKee
 			throw new IllegalArgumentException("REST entity cannot be null");
 		}
 
-		for (Field f : entity.getClass().getDeclaredFields()) {
-
-			if (!f.isAccessible()) {
-				f.setAccessible(true);
+		for (Field f : EntityDescriptor.of(entity.getClass()).getAssociationFields()) {
+			try {
+				Object o = f.get(entity);
+				if (!Hibernate.isInitialized(o)) {
+					Hibernate.initialize(o);
+				}
+			} catch (IllegalArgumentException e) {
+				throw new RuntimeException(e);
+			} catch (IllegalAccessException e) {
+				throw new RuntimeException(e);
 			}
+		}
 
-			Annotation ji = f.getAnnotation(JsonIgnore.class);
-			if (ji != null) {
+		return entity;
+	}
+
+	@Override
+	public <T> Collection<T> lazyload(Collection<T> entities) {
+
+		if (entities == null) {
+			throw new IllegalArgumentException("REST entities cannot be null");
+		}
+		if (entities.isEmpty()) {
+			return entities;
+		}
+
+		SessionFactoryImplementor sfi = (SessionFactoryImplementor) getSessionFactory();
+
+		// uninitialized proxies IDs grouped by entity name, and uninitialized collections owners
+		// IDs grouped by collection role
+
+		Map<String, Set<Serializable>> proxies = new LinkedHashMap<>();
+		Map<String, Set<Serializable>> collections = new LinkedHashMap<>();
+		List<Object> pending = new ArrayList<>();
+
+		for (T entity : entities) {
+
+			if (entity == null) {
 				continue;
 			}
 
-			Annotation mto = f.getAnnotation(ManyToOne.class);
-			Annotation otm = f.getAnnotation(OneToMany.class);
-			Annotation mtm = f.getAnnotation(ManyToMany.class);
+			for (Field f : EntityDescriptor.of(entity.getClass()).getAssociationFields()) {
 
-			if (mto != null || otm != null || mtm != null) {
+				Object o = null;
 				try {
-					Object o = f.get(entity);
-					if (!Hibernate.isInitialized(o)) {
-						Hibernate.initialize(o);
-					}
-				} catch (IllegalArgumentException e) {
-					throw new RuntimeException(e);
+					o = f.get(entity);
 				} catch (IllegalAccessException e) {
 					throw new RuntimeException(e);
 				}
+
+				if (o == null || Hibernate.isInitialized(o)) {
+					continue;
+				}
+
+				if (o instanceof HibernateProxy) {
+					LazyInitializer li = ((HibernateProxy) o).getHibernateLazyInitializer();
+					bucket(proxies, li.getEntityName()).add(li.getIdentifier());
+				} else if (o instanceof PersistentCollection) {
+					PersistentCollection pc = (PersistentCollection) o;
+					bucket(collections, pc.getRole()).add(pc.getKey());
+				}
+
+				pending.add(o);
 			}
 		}
 
-		return entity;
+		Session s = session();
+
+		// load proxied entities, proxies will be resolved from the persistence context
+
+		for (Entry<String, Set<Serializable>> entry : proxies.entrySet()) {
+
+			Class<?> clazz = sfi.getEntityPersister(entry.getKey()).getMappedClass(EntityMode.POJO);
+			String hql = EntityDescriptor.of(clazz).getSelectByIdsHql(sfi);
+			List<Serializable> ids = new ArrayList<>(entry.getValue());
+
+			LOG.debug("Batch loading {} proxies of {}", ids.size(), clazz);
+
+			for (int offset = 0; offset < ids.size(); offset += inSize) {
+				s.createQuery(hql)
+					.setParameterList("ids", ids.subList(offset, Math.min(offset + inSize, ids.size())))
+					.setCacheable(false)
+					.list();
+			}
+		}
+
+		// fetch collections of owners already present in the persistence context
+
+		for (Entry<String, Set<Serializable>> entry : collections.entrySet()) {
+
+			String role = entry.getKey();
+			EntityPersister owner = sfi.getCollectionPersister(role).getOwnerEntityPersister();
+			String property = role.substring(owner.getEntityName().length() + 1);
+			String idn = owner.getIdentifierPropertyName();
+			String hql = String.format("select distinct e from %s e left join fetch e.%s where e.%s in (:ids)", owner.getEntityName(), property, idn);
+			List<Serializable> ids = new ArrayList<>(entry.getValue());
+
+			LOG.debug("Batch loading {} collections of {}", ids.size(), role);
+
+			for (int offset = 0; offset < ids.size(); offset += inSize) {
+				s.createQuery(hql)
+					.setParameterList("ids", ids.subList(offset, Math.min(offset + inSize, ids.size())))
+					.setCacheable(false)
+					.list();
+			}
+		}
+
+		// initialize whatever has not been resolved by the above queries
+
+		for (Object o : pending) {
+			if (!Hibernate.isInitialized(o)) {
+				Hibernate.initialize(o);
+			}
+		}
+
+		return entities;
+	}
+
+	private static <K, V> Set<V> bucket(Map<K, Set<V>> buckets, K key) {
+		Set<V> bucket = buckets.get(key);
+		if (bucket == null) {
+			buckets.put(key, bucket = new LinkedHashSet<>());
+		}
+		return bucket;
 	}
 
 	@Override
 	@SuppressWarnings("unchecked")
 	public <T extends Identity<?>> T load(Class<T> clazz, Serializable id) {
 
-		if (!isEntity(clazz)) {
+		if (!EntityDescriptor.of(clazz).isEntity()) {
 			throw new IllegalArgumentException(String.format("Class %s is not an identity", clazz.getName()));
 		}
 
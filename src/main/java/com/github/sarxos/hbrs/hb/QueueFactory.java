@@ -0,0 +1,22 @@
+package com.github.sarxos.hbrs.hb;
+
+import java.util.concurrent.BlockingQueue;
+
+
+/**
+ * Factory of the queues used by {@link PartitionedWorker} lanes, e.g. to make lanes use
+ * {@link RingBufferQueue} instead of the default linked queue.
+ *
+ * @author Bartosz Firyn (sarxos)
+ * @param <T> the item type
+ */
+public interface QueueFactory<T> {
+
+	/**
+	 * Create new, empty queue for the given lane. Every lane has to get its own queue instance.
+	 *
+	 * @param lane the lane number
+	 * @return New queue
+	 */
+	BlockingQueue<T> create(int lane);
+}
@@ -0,0 +1,23 @@
+package com.github.sarxos.hbrs.hb;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+
+/**
+ * The annotation used on persistence keeper types to make them read-only. Sessions of read-only
+ * keepers are never flushed, loaded entities are read-only (not dirty-checked) and the JDBC
+ * connection is switched to read-only mode. Any attempt to store or delete entities with such
+ * keeper will end with {@link IllegalStateException}.
+ *
+ * @author Bartosz Firyn (sarxos)
+ */
+@Inherited
+@Target(TYPE)
+@Retention(RUNTIME)
+public @interface ReadOnly {
+}
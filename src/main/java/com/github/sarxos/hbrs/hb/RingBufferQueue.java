@@ -0,0 +1,426 @@
+package com.github.sarxos.hbrs.hb;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+/**
+ * Bounded, lock-free ring buffer queue. Slots are pre-allocated when queue is created and every
+ * slot has its own sequence number which tells producers and consumers whether slot is free or
+ * occupied, so offer and poll do not allocate and do not take any lock (bounded MPMC queue by
+ * Dmitry Vyukov). Locks (or parking) are used only when thread has to wait for the free slot or
+ * for the new item, as configured by {@link WaitStrategy}.<br>
+ * <br>
+ * Capacity is rounded up to the nearest power of two.<br>
+ * <br>
+ * Elements can be removed only from the head of the queue. Removal of an arbitrary element
+ * ({@link #remove(Object)}, {@link #removeAll(Collection)}, {@link #retainAll(Collection)} and
+ * iterator removal) is not supported, since it cannot be done without locking the slots.
+ *
+ * @author Bartosz Firyn (sarxos)
+ * @param <E> the element type
+ */
+public class RingBufferQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+	/**
+	 * How threads wait for the free slot or for the new item.
+	 */
+	public static enum WaitStrategy {
+
+		/**
+		 * Waiting threads are blocked on lock condition and signaled by the other side. Lowest
+		 * CPU usage, but higher latency.
+		 */
+		BLOCKING,
+
+		/**
+		 * Waiting threads spin for a while, then yield, and then park for a short time in a loop.
+		 * Lowest latency, but waiting thread consumes some CPU.
+		 */
+		SPIN_PARK,
+	}
+
+	private static final int SPINS = 100;
+
+	private static final int YIELDS = 100;
+
+	private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+	private final Object[] buffer;
+
+	private final AtomicLongArray sequences;
+
+	private final int mask;
+
+	private final AtomicLong head = new AtomicLong();
+
+	private final AtomicLong tail = new AtomicLong();
+
+	private final WaitStrategy strategy;
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private final Condition notEmpty = lock.newCondition();
+
+	private final Condition notFull = lock.newCondition();
+
+	private final AtomicInteger consumersWaiting = new AtomicInteger();
+
+	private final AtomicInteger producersWaiting = new AtomicInteger();
+
+	/**
+	 * Create queue with blocking wait strategy.
+	 *
+	 * @param capacity the queue capacity
+	 */
+	public RingBufferQueue(int capacity) {
+		this(capacity, WaitStrategy.BLOCKING);
+	}
+
+	/**
+	 * @param capacity the queue capacity (rounded up to the power of two)
+	 * @param strategy the wait strategy
+	 */
+	public RingBufferQueue(int capacity, WaitStrategy strategy) {
+
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be positive");
+		}
+		if (capacity > 1 << 30) {
+			throw new IllegalArgumentException("Capacity is too large");
+		}
+		if (strategy == null) {
+			throw new IllegalArgumentException("Wait strategy cannot be null");
+		}
+
+		int size = Integer.highestOneBit(capacity);
+		if (size < capacity) {
+			size <<= 1;
+		}
+
+		this.buffer = new Object[size];
+		this.sequences = new AtomicLongArray(size);
+		this.mask = size - 1;
+		this.strategy = strategy;
+
+		for (int i = 0; i < size; i++) {
+			sequences.set(i, i);
+		}
+	}
+
+	/**
+	 * @return The queue capacity
+	 */
+	public int getCapacity() {
+		return buffer.length;
+	}
+
+	/**
+	 * @return The wait strategy
+	 */
+	public WaitStrategy getWaitStrategy() {
+		return strategy;
+	}
+
+	@Override
+	public boolean offer(E e) {
+
+		if (e == null) {
+			throw new NullPointerException("Null elements are not allowed");
+		}
+
+		long pos = tail.get();
+		int index;
+
+		for (;;) {
+			index = (int) (pos & mask);
+			long dif = sequences.get(index) - pos;
+			if (dif == 0) {
+				if (tail.compareAndSet(pos, pos + 1)) {
+					break;
+				}
+				pos = tail.get();
+			} else if (dif < 0) {
+				return false;
+			} else {
+				pos = tail.get();
+			}
+		}
+
+		buffer[index] = e;
+		sequences.set(index, pos + 1);
+
+		signal(consumersWaiting, notEmpty);
+
+		return true;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public E poll() {
+
+		long pos = head.get();
+		int index;
+
+		for (;;) {
+			index = (int) (pos & mask);
+			long dif = sequences.get(index) - (pos + 1);
+			if (dif == 0) {
+				if (head.compareAndSet(pos, pos + 1)) {
+					break;
+				}
+				pos = head.get();
+			} else if (dif < 0) {
+				return null;
+			} else {
+				pos = head.get();
+			}
+		}
+
+		E e = (E) buffer[index];
+
+		buffer[index] = null;
+		sequences.set(index, pos + mask + 1);
+
+		signal(producersWaiting, notFull);
+
+		return e;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public E peek() {
+		long pos = head.get();
+		int index = (int) (pos & mask);
+		if (sequences.get(index) == pos + 1) {
+			return (E) buffer[index];
+		}
+		return null;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		long pos = head.get();
+		return sequences.get((int) (pos & mask)) < pos + 1;
+	}
+
+	private boolean isFull() {
+		long pos = tail.get();
+		return sequences.get((int) (pos & mask)) < pos;
+	}
+
+	@Override
+	public int size() {
+		long h = head.get();
+		long t = tail.get();
+		return (int) Math.max(0, Math.min(buffer.length, t - h));
+	}
+
+	@Override
+	public int remainingCapacity() {
+		return buffer.length - size();
+	}
+
+	@Override
+	public void put(E e) throws InterruptedException {
+		while (!offer(e)) {
+			await(false, Long.MAX_VALUE);
+		}
+	}
+
+	@Override
+	public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		while (!offer(e)) {
+			long nanos = deadline - System.nanoTime();
+			if (nanos <= 0) {
+				return false;
+			}
+			await(false, nanos);
+		}
+		return true;
+	}
+
+	@Override
+	public E take() throws InterruptedException {
+		E e;
+		while ((e = poll()) == null) {
+			await(true, Long.MAX_VALUE);
+		}
+		return e;
+	}
+
+	@Override
+	public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		E e;
+		while ((e = poll()) == null) {
+			long nanos = deadline - System.nanoTime();
+			if (nanos <= 0) {
+				return null;
+			}
+			await(true, nanos);
+		}
+		return e;
+	}
+
+	/**
+	 * Not supported, only the head of the queue can be removed.
+	 *
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public boolean remove(Object o) {
+		throw new UnsupportedOperationException("Ring buffer queue does not support removal of arbitrary elements");
+	}
+
+	@Override
+	public int drainTo(Collection<? super E> c) {
+		return drainTo(c, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public int drainTo(Collection<? super E> c, int maxElements) {
+
+		if (c == null) {
+			throw new NullPointerException("Collection cannot be null");
+		}
+		if (c == this) {
+			throw new IllegalArgumentException("Cannot drain queue to itself");
+		}
+
+		int n = 0;
+		E e;
+
+		while (n < maxElements && (e = poll()) != null) {
+			c.add(e);
+			n++;
+		}
+
+		return n;
+	}
+
+	/**
+	 * Return weakly consistent iterator over the snapshot of elements available when iterator is
+	 * created. Removal is not supported.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public Iterator<E> iterator() {
+
+		List<E> snapshot = new ArrayList<>();
+
+		for (long pos = head.get(), end = tail.get(); pos < end; pos++) {
+			int index = (int) (pos & mask);
+			Object e = buffer[index];
+			if (e != null && sequences.get(index) == pos + 1) {
+				snapshot.add((E) e);
+			}
+		}
+
+		final Iterator<E> it = snapshot.iterator();
+
+		return new Iterator<E>() {
+
+			@Override
+			public boolean hasNext() {
+				return it.hasNext();
+			}
+
+			@Override
+			public E next() {
+				return it.next();
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * Wake up thread waiting on the other side, if any.
+	 */
+	private void signal(AtomicInteger waiting, Condition condition) {
+		if (strategy == WaitStrategy.BLOCKING && waiting.get() > 0) {
+			lock.lock();
+			try {
+				condition.signal();
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Wait until queue is not empty (consumer) or not full (producer), or until timeout elapses.
+	 * May return spuriously, so caller has to check the state again.
+	 *
+	 * @param consumer is caller a consumer
+	 * @param nanos max time to wait
+	 * @throws InterruptedException when thread has been interrupted
+	 */
+	private void await(boolean consumer, long nanos) throws InterruptedException {
+
+		if (strategy == WaitStrategy.SPIN_PARK) {
+			park(consumer, nanos);
+			return;
+		}
+
+		AtomicInteger waiting = consumer ? consumersWaiting : producersWaiting;
+		Condition condition = consumer ? notEmpty : notFull;
+
+		lock.lockInterruptibly();
+		waiting.incrementAndGet();
+		try {
+			while (consumer ? isEmpty() : isFull()) {
+				if (nanos <= 0) {
+					return;
+				}
+				nanos = condition.awaitNanos(nanos);
+			}
+		} finally {
+			waiting.decrementAndGet();
+			lock.unlock();
+		}
+	}
+
+	private void park(boolean consumer, long nanos) throws InterruptedException {
+
+		boolean timed = nanos != Long.MAX_VALUE;
+		long deadline = timed ? System.nanoTime() + nanos : 0;
+
+		for (int i = 0; consumer ? isEmpty() : isFull(); i++) {
+
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+
+			if (i < SPINS) {
+				continue;
+			}
+
+			if (i < SPINS + YIELDS) {
+				Thread.yield();
+			} else {
+				long remaining = timed ? deadline - System.nanoTime() : PARK_NANOS;
+				if (remaining <= 0) {
+					return;
+				}
+				LockSupport.parkNanos(this, Math.min(PARK_NANOS, remaining));
+			}
+		}
+	}
+}
@@ -0,0 +1,20 @@
+package com.github.sarxos.hbrs.hb;
+
+/**
+ * Consumer of entities read by parallel partitioned scan. In unordered scan consumer is invoked
+ * concurrently from many partition threads so it has to be thread-safe. In ordered scan it is
+ * invoked from the calling thread only.
+ *
+ * @author Bartosz Firyn (sarxos)
+ * @param <T> the entity type
+ * @see PersistenceKeeper#scan(Class, int, ScanConsumer, boolean)
+ */
+public interface ScanConsumer<T> {
+
+	/**
+	 * Consume single entity. Entity is detached and its lazy associations cannot be initialized.
+	 *
+	 * @param entity the entity read from database
+	 */
+	void consume(T entity);
+}
@@ -7,11 +7,27 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
+import org.hibernate.StatelessSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
-public class ScrollableResultsIterator<T> implements Iterator<T>, Closeable {
+/**
+ * Iterator over the scrollable results. It can work in two modes:<br>
+ * <ul>
+ * <li>session mode - rows are loaded into the given session and every row is evicted from it as
+ * soon as the next one is requested; since eviction does not reach associations which are not
+ * cascaded, session is also flushed and cleared every batch size rows, so memory stays flat (please
+ * note that this detaches other entities held in the same session as well),</li>
+ * <li>stateless mode - rows are loaded by the dedicated stateless session which is owned by this
+ * iterator and closed together with it.</li>
+ * </ul>
+ * Iterator is also an {@link Iterable} (single use) so it can be used in the for-each loop, but
+ * remember to close it in the finally block.
+ *
+ * @param <T> the row type
+ */
+public class ScrollableResultsIterator<T> implements Iterator<T>, Iterable<T>, Closeable {
 
 	/**
 	 * I'm the logger.
@@ -22,15 +38,35 @@ public class ScrollableResultsIterator<T> implements Iterator<T>, Closeable {
 
 	private ScrollableResults sr;
 	private T next = null;
+	private T last = null;
 	private Session session;
+	private StatelessSession stateless;
 	private long count = 0;
+	private boolean exhausted = false;
 	private AtomicBoolean open = new AtomicBoolean(true);
 
+	/**
+	 * Create iterator in session mode.
+	 *
+	 * @param sr the scrollable results
+	 * @param session the session rows are loaded into
+	 */
 	public ScrollableResultsIterator(ScrollableResults sr, Session session) {
 		this.sr = sr;
 		this.session = session;
 	}
 
+	/**
+	 * Create iterator in stateless mode. Stateless session will be closed when iterator is closed.
+	 *
+	 * @param sr the scrollable results
+	 * @param stateless the stateless session owned by this iterator
+	 */
+	public ScrollableResultsIterator(ScrollableResults sr, StatelessSession stateless) {
+		this.sr = sr;
+		this.stateless = stateless;
+	}
+
 	/**
 	 * ScrollableResults does not provide a hasNext method, implemented here for Iterator interface.
 	 */
@@ -38,68 +74,87 @@ public class ScrollableResultsIterator<T> implements Iterator<T>, Closeable {
 	@SuppressWarnings("unchecked")
 	public boolean hasNext() {
 
+		if (exhausted) {
+			return false;
+		}
+
 		if (!open.get()) {
 			throw new IllegalStateException("Cursor iterator is already closed");
 		}
 
+		if (next != null) {
+			return true;
+		}
+
+		// eviction does not cascade to all associations, so clear memory to avoid memory leak
+
+		if (session != null && count > 0 && count % DEFAULT_FLUSH_LIMIT == 0) {
+			last = null;
+			flush();
+		} else {
+			evict();
+		}
+
 		if (sr.next()) {
 			next = (T) sr.get()[0];
-		} else {
-			sr.close();
+		}
+
+		if (next == null) {
+			exhausted = true;
+			close0();
 		}
 
 		return next != null;
 	}
 
+	/**
+	 * Return next row. The previously returned row is evicted from the session. When there are no
+	 * more rows, the cursor is closed and null is returned.
+	 */
 	@Override
-	@SuppressWarnings("unchecked")
 	public T next() {
 
-		if (!open.get()) {
-			throw new IllegalStateException("Cursor iterator is already closed");
+		if (!hasNext()) {
+			return null;
 		}
 
-		T toReturn = null;
+		T toReturn = next;
 
-		// next variable could be null because the last element was sent or
-		// because we iterate on the next()
-		// instead of hasNext()
+		next = null;
+		last = toReturn;
+		count++;
 
-		if (next == null) {
-			// if we can retrieve an element, do it
-			if (sr.next()) {
-				toReturn = (T) sr.get()[0];
-			}
-		} else {
-			// the element was fetched by hasNext, return it
-			toReturn = next;
-			next = null;
-		}
-
-		// if we are at the end, close the result set
-
-		if (toReturn == null) {
-			try {
-				close();
-			} catch (IOException e) {
-				LOG.error("IO exception when closing cursor", e);
-			}
-		} else {
+		return toReturn;
+	}
 
-			// clear memory to avoid memory leak
-			if (count > 0 && count % DEFAULT_FLUSH_LIMIT == 0) {
-				flush();
+	/**
+	 * Evict previously returned row from the session (session mode only).
+	 */
+	private void evict() {
+		if (last != null) {
+			if (session != null && session.isOpen()) {
+				session.evict(last);
 			}
-
-			count++;
+			last = null;
 		}
+	}
 
-		return toReturn;
+	/**
+	 * @return Number of rows returned so far
+	 */
+	public long getCount() {
+		return count;
 	}
 
+	/**
+	 * Flush and clear the whole session (session mode only). This will detach all entities from
+	 * the session, not only the ones loaded by this iterator.
+	 */
 	public void flush() {
-		session.flush();
-		session.clear();
+		if (session != null) {
+			session.flush();
+			session.clear();
+		}
 	}
 
 	/**
@@ -110,11 +165,31 @@ public class ScrollableResultsIterator<T> implements Iterator<T>, Closeable {
 		throw new UnsupportedOperationException();
 	}
 
+	@Override
+	public Iterator<T> iterator() {
+		return this;
+	}
+
+	private void close0() {
+		try {
+			close();
+		} catch (IOException e) {
+			LOG.error("IO exception when closing cursor", e);
+		}
+	}
+
 	@Override
 	public void close() throws IOException {
 		if (open.compareAndSet(true, false)) {
-			sr.close();
-			flush();
+			try {
+				sr.close();
+				evict();
+			} finally {
+				if (stateless != null) {
+					stateless.close();
+				}
+			}
+			LOG.debug("Cursor closed after {} rows", count);
 		}
 	}
 }
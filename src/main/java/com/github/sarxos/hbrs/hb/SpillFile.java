@@ -0,0 +1,163 @@
+package com.github.sarxos.hbrs.hb;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+
+/**
+ * Disk overflow for worker items. Every item is serialized with Java serialization into memory
+ * first and then appended to the spill file as a length-prefixed record, so item which cannot be
+ * serialized does not leave partial record in the file. Items are read back in the same order.
+ * When reading starts, the current file is moved aside and new items are written to the fresh
+ * file, so writing and reading do not interfere. Spill file is not meant to be durable, items
+ * which has not been read are lost when spill is closed.
+ *
+ * @author Bartosz Firyn (sarxos)
+ * @param <T> the item type
+ */
+public class SpillFile<T> implements Closeable {
+
+	private final File file;
+
+	private final File replay;
+
+	private DataOutputStream out;
+
+	private DataInputStream in;
+
+	/**
+	 * Number of items written but not yet moved to replay.
+	 */
+	private long written;
+
+	/**
+	 * Number of items in replay which has not yet been read.
+	 */
+	private long pending;
+
+	/**
+	 * @param file the spill file
+	 */
+	public SpillFile(File file) {
+		if (file == null) {
+			throw new IllegalArgumentException("Spill file cannot be null");
+		}
+		this.file = file;
+		this.replay = new File(file.getPath() + ".replay");
+	}
+
+	/**
+	 * @return The spill file
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Append item to the spill file.
+	 *
+	 * @param item the item to be written
+	 * @throws IOException when item cannot be written (e.g. it is not serializable)
+	 */
+	public synchronized void write(T item) throws IOException {
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+			oos.writeObject(item);
+		}
+
+		if (out == null) {
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		}
+
+		out.writeInt(bytes.size());
+		bytes.writeTo(out);
+		written++;
+	}
+
+	/**
+	 * Read the oldest item from the spill file.
+	 *
+	 * @return The oldest item or null if spill is empty
+	 * @throws IOException when item cannot be read
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized T read() throws IOException {
+
+		if (in == null) {
+
+			if (written == 0) {
+				return null;
+			}
+
+			out.close();
+			out = null;
+
+			if (replay.exists() && !replay.delete()) {
+				throw new IOException("Cannot delete " + replay);
+			}
+			if (!file.renameTo(replay)) {
+				throw new IOException("Cannot move " + file + " to " + replay);
+			}
+
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(replay)));
+			pending = written;
+			written = 0;
+		}
+
+		byte[] bytes;
+		try {
+			bytes = new byte[in.readInt()];
+			in.readFully(bytes);
+		} finally {
+			if (--pending == 0) {
+				in.close();
+				in = null;
+				replay.delete();
+			}
+		}
+
+		try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+			return (T) ois.readObject();
+		} catch (ClassNotFoundException e) {
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * @return Number of items in spill
+	 */
+	public synchronized long size() {
+		return written + pending;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		try {
+			if (out != null) {
+				out.close();
+			}
+			if (in != null) {
+				in.close();
+			}
+		} finally {
+			out = null;
+			in = null;
+			written = 0;
+			pending = 0;
+			file.delete();
+			replay.delete();
+		}
+	}
+}
@@ -0,0 +1,21 @@
+package com.github.sarxos.hbrs.hb;
+
+/**
+ * Work to be executed by persistence keeper in a single transaction. All keeper operations invoked
+ * from within the unit of work join the same transaction, which is flushed and committed once,
+ * when unit of work finishes.
+ *
+ * @author Bartosz Firyn (sarxos)
+ * @param <R> the result type
+ * @see PersistenceKeeper#transaction(UnitOfWork)
+ */
+public interface UnitOfWork<R> {
+
+	/**
+	 * Execute work.
+	 *
+	 * @param keeper the persistence keeper executing the work
+	 * @return Work result
+	 */
+	R execute(PersistenceKeeper keeper);
+}
@@ -1,8 +1,17 @@
 package com.github.sarxos.hbrs.hb;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.hibernate.HibernateException;
 import org.hibernate.Session;
@@ -25,7 +34,7 @@ public abstract class Worker<K extends PersistenceKeeper, T> implements Runnable
 
 	private final Class<K> clazz;
 
-	private final LinkedBlockingQueue<T> items;
+	private final BlockingQueue<T> items;
 
 	private final String name;
 	private final Runner runner;
@@ -34,6 +43,17 @@ public abstract class Worker<K extends PersistenceKeeper, T> implements Runnable
 
 	private AtomicBoolean running = new AtomicBoolean(false);
 
+	private volatile OverloadPolicy policy = OverloadPolicy.DROP_OLDEST;
+	private volatile int batchSize = PersistenceKeeperImpl.getBatchSize();
+	private volatile long linger = 0;
+	private volatile long blockTimeout = 1000;
+	private volatile SpillFile<T> spill;
+
+	private final AtomicLong dropped = new AtomicLong();
+	private final AtomicLong blocked = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	private final AtomicLong spilled = new AtomicLong();
+
 	/**
 	 * @param clazz the persistence keeper class to work with
 	 * @param name the worker name (will be used as thread name)
@@ -69,13 +89,33 @@ public abstract class Worker<K extends PersistenceKeeper, T> implements Runnable
 	 * @param stateless is worker stateless (will not create Hibernate session)
 	 */
 	public Worker(Class<K> clazz, String name, int capacity, boolean start, boolean stateless) {
+		this(clazz, name, new LinkedBlockingQueue<T>(capacity > 0 ? capacity : Integer.MAX_VALUE), start, stateless);
+	}
+
+	/**
+	 * Create worker with the given queue, e.g. {@link RingBufferQueue} for the high throughput
+	 * workers. Queue should be empty.
+	 *
+	 * @param clazz the persistence keeper class
+	 * @param name the worker name
+	 * @param queue the worker queue
+	 * @param start shall worker start immediately
+	 * @param stateless is worker stateless (will not create Hibernate session)
+	 */
+	public Worker(Class<K> clazz, String name, BlockingQueue<T> queue, boolean start, boolean stateless) {
+
+		if (queue == null) {
+			throw new IllegalArgumentException("Worker queue cannot be null");
+		}
+
+		int remaining = queue.remainingCapacity();
 
 		this.clazz = clazz;
 		this.name = name;
 		this.runner = new Runner(this, name);
 		this.stateless = stateless;
-		this.capacity = capacity;
-		this.items = new LinkedBlockingQueue<T>(capacity > 0 ? capacity : Integer.MAX_VALUE);
+		this.capacity = remaining == Integer.MAX_VALUE ? 0 : remaining + queue.size();
+		this.items = queue;
 
 		if (start) {
 			start();
@@ -104,42 +144,242 @@ public abstract class Worker<K extends PersistenceKeeper, T> implements Runnable
 		}
 	}
 
+	/**
+	 * Put item into the worker queue. When queue is full, the item is handled according to the
+	 * worker {@link OverloadPolicy}.
+	 *
+	 * @param item the item to be worked out
+	 * @throws RejectedExecutionException when queue is full and policy is
+	 *             {@link OverloadPolicy#REJECT}, or policy is {@link OverloadPolicy#BLOCK} and
+	 *             there is still no space when block timeout elapses
+	 */
 	public void process(T item) {
 
 		if (!isRunning()) {
 			throw new RuntimeException("Worker is not running");
 		}
 
-		int size = items.size();
+		if (items.offer(item)) {
+			return;
+		}
 
-		if (capacity > 0 && size > capacity * 0.95) {
+		switch (policy) {
 
-			int drain = (int) (capacity * 0.25);
+			case BLOCK:
+				blocked.incrementAndGet();
+				boolean offered = false;
+				try {
+					offered = items.offer(item, blockTimeout, TimeUnit.MILLISECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				if (!offered) {
+					rejected.incrementAndGet();
+					throw new RejectedExecutionException(String.format("Worker %s queue is still full (%d items) after %d ms", name, capacity, blockTimeout));
+				}
+				break;
+
+			case REJECT:
+				rejected.incrementAndGet();
+				throw new RejectedExecutionException(String.format("Worker %s queue is full (%d items)", name, capacity));
 
-			LOG.error("Worker {} capacity problem detected!", name);
-			LOG.error("Worker queue is almost completely excited ({}/{}), draining {} items", size, capacity, drain);
+			case DROP_OLDEST:
+				do {
+					T oldest = items.poll();
+					if (oldest != null) {
+						drop(oldest);
+					}
+				} while (!items.offer(item));
+				break;
 
-			for (int i = 0; i < drain; i++) {
-				if (items.isEmpty()) {
+			case SPILL:
+				SpillFile<T> sf = spill;
+				if (sf == null) {
+					drop(item);
 					break;
 				}
 				try {
-					items.take();
-				} catch (InterruptedException e) {
-					throw new RuntimeException(e);
+					sf.write(item);
+					spilled.incrementAndGet();
+				} catch (IOException e) {
+					LOG.error("Cannot spill item in worker " + name, e);
+					drop(item);
 				}
-			}
+				break;
+		}
+	}
+
+	private void drop(T item) {
+
+		if (dropped.getAndIncrement() % 1000 == 0) {
+			LOG.warn("Worker {} queue is full ({} items), {} items dropped so far", name, capacity, dropped.get());
 		}
 
 		try {
-			this.items.put(item);
-		} catch (InterruptedException e) {
-			LOG.debug("Interrupted: " + e.getMessage(), e);
+			dropped(item);
+		} catch (Exception e) {
+			LOG.error("Dropped item callback failed", e);
+		}
+	}
+
+	/**
+	 * Invoked when item has been dropped because of queue overload. Does nothing by default.
+	 * Spilled item which cannot be read back is reported with null item.
+	 *
+	 * @param item the dropped item, null if spilled item could not be read
+	 */
+	protected void dropped(T item) {
+		// override if needed
+	}
+
+	/**
+	 * @return The overload policy
+	 */
+	public OverloadPolicy getOverloadPolicy() {
+		return policy;
+	}
+
+	/**
+	 * Set what to do when queue is full. Default policy is {@link OverloadPolicy#DROP_OLDEST}.
+	 *
+	 * @param policy the overload policy
+	 */
+	public void setOverloadPolicy(OverloadPolicy policy) {
+		if (policy == null) {
+			throw new IllegalArgumentException("Overload policy cannot be null");
+		}
+		this.policy = policy;
+	}
+
+	/**
+	 * @return Max time (in milliseconds) producer is blocked with {@link OverloadPolicy#BLOCK}
+	 */
+	public long getBlockTimeout() {
+		return blockTimeout;
+	}
+
+	/**
+	 * @param blockTimeout the max time (in milliseconds) producer is blocked with
+	 *            {@link OverloadPolicy#BLOCK}
+	 */
+	public void setBlockTimeout(long blockTimeout) {
+		if (blockTimeout < 0) {
+			throw new IllegalArgumentException("Block timeout cannot be negative");
 		}
+		this.blockTimeout = blockTimeout;
 	}
 
+	/**
+	 * Set file where items are written with {@link OverloadPolicy#SPILL}.
+	 *
+	 * @param file the spill file
+	 */
+	public void setSpillFile(File file) {
+		this.spill = file == null ? null : new SpillFile<T>(file);
+	}
+
+	/**
+	 * @return Max number of items worked out in a single transaction
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Set max number of items worked out in a single transaction. Transaction is committed as soon
+	 * as this number of items is reached. Default is the persistence keeper batch size.
+	 *
+	 * @param batchSize the max number of items per transaction
+	 */
+	public void setBatchSize(int batchSize) {
+		if (batchSize <= 0) {
+			throw new IllegalArgumentException("Batch size must be positive");
+		}
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * @return Max time (in milliseconds) transaction is kept open waiting for more items
+	 */
+	public long getLinger() {
+		return linger;
+	}
+
+	/**
+	 * Set max time transaction is kept open waiting for more items. Transaction is committed when
+	 * this time passes since the first item in transaction, even if batch size has not been
+	 * reached. Default is 0, which means that transaction is committed as soon as there are no
+	 * more items immediately available in the queue.
+	 *
+	 * @param linger the max time (in milliseconds)
+	 */
+	public void setLinger(long linger) {
+		if (linger < 0) {
+			throw new IllegalArgumentException("Linger time cannot be negative");
+		}
+		this.linger = linger;
+	}
+
+	/**
+	 * @return Number of items dropped because of overload
+	 */
+	public long getDropped() {
+		return dropped.get();
+	}
+
+	/**
+	 * @return Number of producer calls blocked because of overload
+	 */
+	public long getBlocked() {
+		return blocked.get();
+	}
+
+	/**
+	 * @return Number of items rejected because of overload
+	 */
+	public long getRejected() {
+		return rejected.get();
+	}
+
+	/**
+	 * @return Number of items written to spill file because of overload
+	 */
+	public long getSpilled() {
+		return spilled.get();
+	}
+
+	/**
+	 * Work out single item.
+	 *
+	 * @param keeper the persistence keeper (null for stateless worker)
+	 * @param session the keeper session (null for stateless worker)
+	 * @param entity the item to work out
+	 */
 	public abstract void work(K keeper, Session session, T entity);
 
+	/**
+	 * Work out items drained from the queue for the current commit window, all in the same
+	 * transaction. Override this method to use multi-row statements or bulk keeper operations.
+	 * Default implementation invokes {@link #work(PersistenceKeeper, Session, Object)} for every
+	 * item and logs non-Hibernate errors per item. Hibernate errors are propagated and cause the
+	 * whole window to be rolled back.
+	 *
+	 * @param keeper the persistence keeper (null for stateless worker)
+	 * @param session the keeper session (null for stateless worker)
+	 * @param items the items to work out
+	 */
+	public void workBatch(K keeper, Session session, List<T> items) {
+		for (T item : items) {
+			try {
+				work(keeper, session, item);
+			} catch (HibernateException e) {
+				throw e;
+			} catch (Exception e) {
+				LOG.error(e.getMessage(), e);
+			}
+		}
+	}
+
 	private void commit(Transaction t) {
 		if (t != null && t.isActive()) {
 			try {
@@ -188,53 +428,104 @@ public abstract class Worker<K extends PersistenceKeeper, T> implements Runnable
 	@Override
 	public void run() {
 
-		T m = null;
-
-		int bs = PersistenceKeeperImpl.getBatchSize();
-		int c = 0;
+		List<T> batch = new ArrayList<>();
 
 		K k = null;
 		Transaction t = null;
 		Session s = null;
 
+		// number of items worked out in the current commit window and the time when window has to
+		// be committed even if it is not full
+
+		int pending = 0;
+		long deadline = 0;
+
 		while (isRunning()) {
 			try {
-				if (items.isEmpty()) {
+
+				int bs = batchSize;
+
+				if (pending > 0 && (pending >= bs || System.currentTimeMillis() >= deadline)) {
 					if (!stateless) {
 						commit(t);
+						flush(s);
+					}
+					pending = 0;
+				}
+
+				if (pending == 0 && items.isEmpty()) {
+					if (!stateless) {
 						flush(k, s);
-						c = 0;
 					}
 					LOG.debug("All awaiting items has been worked out");
 				}
 
-				m = items.take();
+				// work out spilled items when queue is empty, otherwise wait for the first item (but
+				// not longer than the commit deadline) and then take everything available in one
+				// pass, up to the window size
+
+				SpillFile<T> sf = spill;
+				if (sf != null && items.isEmpty() && sf.size() > 0) {
+					while (pending + batch.size() < bs) {
+						T m;
+						try {
+							m = sf.read();
+						} catch (IOException e) {
+							LOG.error("Cannot read spilled item in worker " + name, e);
+							drop(null);
+							break;
+						}
+						if (m == null) {
+							break;
+						}
+						batch.add(m);
+					}
+					if (batch.isEmpty()) {
+						continue;
+					}
+				} else {
+
+					T first = null;
+					if (pending > 0) {
+						first = items.poll(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+					} else {
+						first = items.take();
+					}
+
+					if (first == null) {
+						continue;
+					}
+
+					batch.add(first);
+					items.drainTo(batch, bs - pending - 1);
+				}
+
+				if (pending == 0) {
+					deadline = System.currentTimeMillis() + linger;
+				}
 
 				if (!stateless) {
 					if (s == null || !s.isOpen()) {
 						k = create();
 						s = k.session();
 						t = s.beginTransaction();
+					} else if (t == null || !t.isActive()) {
+						t = s.beginTransaction();
 					}
 				}
 
 				try {
-					work(k, s, m);
+					workBatch(k, s, Collections.unmodifiableList(batch));
+					pending += batch.size();
 				} catch (HibernateException e) {
 					LOG.error("Hibernate error", e);
 					if (!stateless) {
 						rollback(t, s, k);
 					}
+					pending = 0;
 				} catch (Exception e) {
 					LOG.error(e.getMessage(), e);
-				}
-
-				if (!stateless) {
-					if (c > 0 && c++ % bs == 0) {
-						commit(t);
-						flush(s);
-						t = s.beginTransaction();
-					}
+					pending += batch.size();
 				}
 
 			} catch (InterruptedException e) {
@@ -244,11 +535,17 @@ public abstract class Worker<K extends PersistenceKeeper, T> implements Runnable
 
 				LOG.error("Exception when working: " + e.getMessage(), e);
 
+				pending = 0;
+
 				try {
-					k.close();
+					if (k != null) {
+						k.close();
+					}
 				} catch (Exception e1) {
 					LOG.error("Exception when closing keeper: " + e1.getMessage(), e1);
 				}
+			} finally {
+				batch.clear();
 			}
 		}
 	}
@@ -11,14 +11,18 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.SecurityContext;
+import javax.ws.rs.core.UriBuilder;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.sarxos.hbrs.hb.Page;
+import com.github.sarxos.hbrs.hb.ScrollableResultsIterator;
 
 
 @Consumes(MediaType.APPLICATION_JSON)
@@ -148,6 +152,71 @@ public abstract class AbstractResource {
 			.build();
 	}
 
+	/**
+	 * Response with a single page of keyset pagination. When there are more items after the given
+	 * page, the link to the next page is added to the response (rel="next"), with query parameters
+	 * named "after" (continuation token) and "value" (last ordering value) replaced. Both can be
+	 * passed to the keeper as they are, e.g. {@code keeper.listAfter(clazz, property, value, after,
+	 * size)}.
+	 *
+	 * @param page the page to be marshaled into response
+	 * @return OK response (HTTP 200)
+	 */
+	public Response page(Page<?> page) {
+		return page(page, "after", "value");
+	}
+
+	/**
+	 * Response with a single page of keyset pagination. When there are more items after the given
+	 * page, the link to the next page is added to the response (rel="next").
+	 *
+	 * @param page the page to be marshaled into response
+	 * @param after the name of query parameter with continuation token
+	 * @param value the name of query parameter with last ordering value
+	 * @return OK response (HTTP 200)
+	 */
+	public Response page(Page<?> page, String after, String value) {
+
+		ResponseBuilder builder = Response
+			.status(Status.OK)
+			.entity(page);
+
+		if (page.isMore() && request != null) {
+
+			StringBuffer url = request.getRequestURL();
+			if (request.getQueryString() != null) {
+				url.append('?').append(request.getQueryString());
+			}
+
+			UriBuilder next = UriBuilder
+				.fromUri(url.toString())
+				.replaceQueryParam(after, page.getNextToken());
+
+			if (page.getValueToken() != null) {
+				next.replaceQueryParam(value, page.getValueToken());
+			}
+
+			builder.link(next.build(), "next");
+		}
+
+		return builder.build();
+	}
+
+	/**
+	 * Response with all rows from the cursor streamed as JSON array. Rows are written one by one
+	 * and cursor is closed when response is written or when client aborts.
+	 *
+	 * @param cursor the cursor to be streamed into response
+	 * @return OK response (HTTP 200)
+	 */
+	public static Response stream(ScrollableResultsIterator<?> cursor) {
+		return Response
+			.status(Status.OK)
+			.type(MediaType.APPLICATION_JSON_TYPE)
+			.entity(new StreamingJsonOutput<>(cursor))
+			.build();
+	}
+
 	public static Response removed(Serializable id) {
 		Map<String, Object> response = new HashMap<String, Object>();
 		response.put("removed", id);
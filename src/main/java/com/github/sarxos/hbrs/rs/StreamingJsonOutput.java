@@ -0,0 +1,95 @@
+package com.github.sarxos.hbrs.rs;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.ws.rs.core.StreamingOutput;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.sarxos.hbrs.hb.ScrollableResultsIterator;
+import com.github.sarxos.hbrs.rs.context.JacksonHibernateProvider;
+
+
+/**
+ * Streaming output writing rows from the cursor as JSON array, one row at a time, so memory
+ * consumption does not depend on the number of rows. Rows are evicted by the cursor as soon as
+ * the next one is fetched. Cursor is closed when all rows are written, and also when writing
+ * fails (e.g. client aborted connection).
+ *
+ * @author Bartosz Firyn (sarxos)
+ * @param <T> the row type
+ */
+public class StreamingJsonOutput<T> implements StreamingOutput {
+
+	private static final Logger LOG = LoggerFactory.getLogger(StreamingJsonOutput.class);
+
+	/**
+	 * Mapper configured the same way as the one used by Jersey.
+	 */
+	private static final ObjectMapper MAPPER = JacksonHibernateProvider.createMapper();
+
+	private final ScrollableResultsIterator<T> cursor;
+
+	private final ObjectWriter writer;
+
+	/**
+	 * @param cursor the cursor to read rows from
+	 */
+	public StreamingJsonOutput(ScrollableResultsIterator<T> cursor) {
+		this(cursor, MAPPER);
+	}
+
+	/**
+	 * @param cursor the cursor to read rows from
+	 * @param mapper the object mapper used to serialize rows
+	 */
+	public StreamingJsonOutput(ScrollableResultsIterator<T> cursor, ObjectMapper mapper) {
+
+		if (cursor == null) {
+			throw new IllegalArgumentException("Cursor cannot be null");
+		}
+		if (mapper == null) {
+			throw new IllegalArgumentException("Object mapper cannot be null");
+		}
+
+		this.cursor = cursor;
+		this.writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+	}
+
+	@Override
+	public void write(OutputStream os) throws IOException {
+
+		JsonGenerator generator = writer.getFactory().createGenerator(os, JsonEncoding.UTF8);
+		generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+		// do not close array when writing fails, so client gets visibly broken JSON instead of the
+		// valid but truncated one
+
+		generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+
+		try {
+
+			generator.writeStartArray();
+			while (cursor.hasNext()) {
+				writer.writeValue(generator, cursor.next());
+			}
+			generator.writeEndArray();
+
+			LOG.debug("Streamed {} rows", cursor.getCount());
+
+		} finally {
+			try {
+				cursor.close();
+			} finally {
+				generator.close();
+			}
+		}
+	}
+}
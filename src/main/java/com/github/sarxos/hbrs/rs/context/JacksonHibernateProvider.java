@@ -28,9 +28,21 @@ public class JacksonHibernateProvider implements ContextResolver<ObjectMapper> {
 
 		LOG.debug("Create JSON object mapper for context");
 
-		mapper = new ObjectMapper();
+		mapper = createMapper();
+	}
+
+	/**
+	 * Create new JSON object mapper configured the same way as the one provided to Jersey.
+	 *
+	 * @return New object mapper
+	 */
+	public static ObjectMapper createMapper() {
+
+		ObjectMapper mapper = new ObjectMapper();
 		mapper.registerModule(new Hibernate3Module());
 		mapper.configure(MapperFeature.USE_ANNOTATIONS, true);
+
+		return mapper;
 	}
 
 	@Override